@@ -0,0 +1,94 @@
+package oopwithjava;
+
+import java.time.LocalDate;
+
+/**
+ * Builds the event fixtures shared by the benchmarks.
+ * Every generated event books a distinct (date, timeslot, location), walking
+ * all locations and timeslots of a day before moving on to the next day.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class BenchmarkEvents {
+    private static final Timeslot[] TIMESLOTS = Timeslot.values();
+    private static final Location[] LOCATIONS = Location.values();
+    private static final Department[] DEPARTMENTS = Department.values();
+    private static final long FIRST_DAY = LocalDate.of(2000, 1, 1).toEpochDay();
+
+    /**
+     * Creates the n-th fixture event.
+     *
+     * @param n the number of the event
+     * @return a new event with a booking no other fixture event uses
+     */
+    public static Event create(int n) {
+        int slot = n % OccupancyMap.SLOTS_PER_DAY;
+        Date date = date(FIRST_DAY + n / OccupancyMap.SLOTS_PER_DAY);
+        Department department = DEPARTMENTS[n % DEPARTMENTS.length];
+        Contact contact = new Contact(department, department.name().toLowerCase() + "@rutgers.edu");
+        return new Event(date, TIMESLOTS[slot / LOCATIONS.length], LOCATIONS[slot % LOCATIONS.length], contact,
+                Constants.MIN_DURATION + n % (Constants.MAX_DURATION - Constants.MIN_DURATION + 1));
+    }
+
+    /**
+     * Creates count consecutive fixture events.
+     *
+     * @param count  the number of events to create
+     * @param offset the number of the first event
+     * @return the events
+     */
+    public static Event[] create(int count, int offset) {
+        Event[] events = new Event[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = create(offset + i);
+        }
+        return events;
+    }
+
+    /**
+     * Creates a calendar holding the first size fixture events.
+     *
+     * @param size the number of events in the calendar
+     * @return the filled calendar
+     */
+    public static EventCalendar calendar(int size) {
+        return fill(new EventCalendar(), size);
+    }
+
+    /**
+     * Fills a calendar with the first size fixture events.
+     *
+     * @param <T>      the type of the calendar
+     * @param calendar the empty calendar
+     * @param size     the number of events to add
+     * @return the filled calendar
+     */
+    public static <T extends BookingCalendar> T fill(T calendar, int size) {
+        for (Event event : create(size, 0)) {
+            calendar.add(event);
+        }
+        return calendar;
+    }
+
+    /**
+     * Formats an epoch day as a "mm/dd/yyyy" string.
+     *
+     * @param epochDay the epoch day
+     * @return the formatted date
+     */
+    public static String format(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + date.getYear();
+    }
+
+    /**
+     * Creates the date of an epoch day.
+     *
+     * @param epochDay the epoch day
+     * @return the date
+     */
+    private static Date date(long epochDay) {
+        return new Date(format(epochDay));
+    }
+}
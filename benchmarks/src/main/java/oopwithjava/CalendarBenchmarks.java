@@ -0,0 +1,32 @@
+package oopwithjava;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of the benchmark jar.
+ * Takes the usual JMH command-line options and always adds the GC profiler,
+ * so every run reports allocation rates next to the timings.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class CalendarBenchmarks {
+
+    /**
+     * Runs the selected benchmarks.
+     *
+     * @param args JMH command-line options
+     * @throws Exception if the options are invalid or a benchmark fails
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,46 @@
+package oopwithjava;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost the command metrics add to every command.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandMetricsBenchmark {
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    /**
+     * Times an empty command the way the organizer times every command.
+     */
+    @Benchmark
+    public void recordCommand() {
+        long start = System.nanoTime();
+        metrics.record(Command.A, System.nanoTime() - start);
+    }
+
+    /**
+     * Counts an outcome.
+     */
+    @Benchmark
+    public void countOutcome() {
+        metrics.count(Outcome.ADDED);
+    }
+}
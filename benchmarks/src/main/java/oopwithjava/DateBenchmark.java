@@ -0,0 +1,69 @@
+package oopwithjava;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of the "mm/dd/yyyy" dates of the organizer commands.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateBenchmark {
+    private static final int INPUTS = 256;
+
+    private String[] inputs;
+    private int cursor;
+
+    /**
+     * Prepares a spread of date strings starting today, inside the shared date
+     * cache.
+     */
+    @Setup
+    public void setUp() {
+        inputs = new String[INPUTS];
+        long firstDay = LocalDate.now().toEpochDay();
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = BenchmarkEvents.format(firstDay + i);
+        }
+    }
+
+    /**
+     * Parses a date string into a shared instance.
+     *
+     * @return the parsed date
+     */
+    @Benchmark
+    public Date parse() {
+        cursor = (cursor + 1) & (INPUTS - 1);
+        return Date.parse(inputs[cursor]);
+    }
+
+    /**
+     * Parses a date string into a new instance.
+     *
+     * @return the parsed date
+     */
+    @Benchmark
+    public Date construct() {
+        cursor = (cursor + 1) & (INPUTS - 1);
+        return new Date(inputs[cursor]);
+    }
+}
@@ -0,0 +1,176 @@
+package oopwithjava;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the calendar operations behind the organizer commands for
+ * calendars of growing size, with the events stored as objects or column by
+ * column.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCalendarBenchmark {
+    private static final int PROBES = 1024;
+    private static final int RANGE_DAYS = 15;
+    private static final int SEMESTER_DAYS = 120;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    private int size;
+
+    @Param({ "objects", "columnar" })
+    private String storage;
+
+    private BookingCalendar calendar;
+    private Event[] present;
+    private Event[] absent;
+    private ReportWriter report;
+    private int[] freeBookings;
+    private int cursor;
+
+    /**
+     * Fills the calendar and picks the probe events.
+     */
+    @Setup
+    public void setUp() {
+        calendar = BenchmarkEvents.fill(
+                storage.equals("columnar") ? new ColumnarEventCalendar() : new EventCalendar(), size);
+        present = new Event[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            present[i] = BenchmarkEvents.create((int) ((long) i * size / PROBES));
+        }
+        absent = BenchmarkEvents.create(PROBES, size);
+        freeBookings = new int[Constants.FREE_BOOKINGS_LISTED];
+        report = new ReportWriter(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Gets the next probe index.
+     *
+     * @return the probe index
+     */
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    /**
+     * Adds a new event, then takes it out again to keep the size constant.
+     *
+     * @return whether the event was removed again
+     */
+    @Benchmark
+    public boolean add() {
+        Event event = absent[next()];
+        calendar.add(event);
+        return calendar.remove(event);
+    }
+
+    /**
+     * Removes an event from the middle of the calendar, then books it again.
+     *
+     * @return whether the event was removed
+     */
+    @Benchmark
+    public boolean remove() {
+        Event event = present[next()];
+        boolean removed = calendar.remove(event);
+        calendar.add(event);
+        return removed;
+    }
+
+    /**
+     * Looks up an event that is on the calendar.
+     *
+     * @return whether the event was found
+     */
+    @Benchmark
+    public boolean containsHit() {
+        return calendar.contains(present[next()]);
+    }
+
+    /**
+     * Looks up an event that is not on the calendar.
+     *
+     * @return whether the event was found
+     */
+    @Benchmark
+    public boolean containsMiss() {
+        return calendar.contains(absent[next()]);
+    }
+
+    /**
+     * Runs the organizer's conflict check for a new booking.
+     *
+     * @return whether the booking conflicts
+     */
+    @Benchmark
+    public boolean conflict() {
+        return EventOrganizer.conflict(absent[next()], calendar);
+    }
+
+    /**
+     * Renders the PE report.
+     */
+    @Benchmark
+    public void printByDate() {
+        calendar.printByDate(report);
+    }
+
+    /**
+     * Renders the PR report of 15 days starting at a booked date.
+     */
+    @Benchmark
+    public void printByDateRange() {
+        Date from = present[next()].getDate();
+        calendar.printByDateRange(from, Date.ofEpochDay(from.toEpochDay() + RANGE_DAYS - 1), event -> true, report);
+    }
+
+    /**
+     * Searches a semester starting at a booked date for free bookings; in a
+     * fully booked calendar the whole semester is scanned.
+     *
+     * @return the number of free bookings found
+     */
+    @Benchmark
+    public int findFree() {
+        int from = present[next()].getDate().toEpochDay();
+        return calendar.findFree(from, from + SEMESTER_DAYS - 1, null, freeBookings);
+    }
+
+    /**
+     * Renders the PC report.
+     */
+    @Benchmark
+    public void printByCampus() {
+        calendar.printByCampus(report);
+    }
+
+    /**
+     * Renders the PD report.
+     */
+    @Benchmark
+    public void printByDepartment() {
+        calendar.printByDepartment(report);
+    }
+}
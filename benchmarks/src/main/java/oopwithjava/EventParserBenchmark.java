@@ -0,0 +1,69 @@
+package oopwithjava;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures decoding of A command lines into events.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventParserBenchmark {
+    private static final int INPUTS = 256;
+
+    private String[] lines;
+    private EventParser parser;
+    private LineTokenizer tokenizer;
+    private int cursor;
+
+    /**
+     * Prepares A command lines for dates in the booking window.
+     */
+    @Setup
+    public void setUp() {
+        Timeslot[] timeslots = Timeslot.values();
+        Location[] locations = Location.values();
+        lines = new String[INPUTS];
+        long today = LocalDate.now().toEpochDay();
+        for (int i = 0; i < INPUTS; i++) {
+            lines[i] = "A " + BenchmarkEvents.format(today + i % 150) + " "
+                    + timeslots[i % timeslots.length].name().toLowerCase() + " " + locations[i % locations.length]
+                    + " cs cs@rutgers.edu 60";
+        }
+        parser = new EventParser(new PrintStream(OutputStream.nullOutputStream()));
+        tokenizer = new LineTokenizer();
+    }
+
+    /**
+     * Decodes the command and the event of an A line.
+     *
+     * @return the parsed event
+     */
+    @Benchmark
+    public Event parseEvent() {
+        cursor = (cursor + 1) & (INPUTS - 1);
+        tokenizer.reset(lines[cursor]);
+        Command.next(tokenizer);
+        return parser.parseEvent(tokenizer);
+    }
+}
@@ -0,0 +1,161 @@
+package oopwithjava;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The booking operations shared by every calendar implementation: adding and
+ * cancelling events, conflict checks, the calendar reports, and iteration over
+ * the events in insertion order.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public interface BookingCalendar extends Iterable<Event> {
+
+    /**
+     * Adds an event, unless its date, timeslot and location are already booked.
+     * The conflict check and the insert happen as one step.
+     *
+     * @param event the event to be added
+     * @return true if the event was added, false if it conflicts with a booking
+     */
+    boolean add(Event event);
+
+    /**
+     * Adds a batch of events, skipping every event that conflicts with a
+     * booking on the calendar or earlier in the batch.
+     *
+     * @param batch the events to be added
+     * @return the number of events added
+     */
+    default int addAll(Event[] batch) {
+        int added = 0;
+        for (Event event : batch) {
+            if (add(event)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Removes the event booked on the date, timeslot and location of the given
+     * event.
+     *
+     * @param event the event to be removed
+     * @return true if the event was removed, false if it was not booked
+     */
+    boolean remove(Event event);
+
+    /**
+     * Checks if the date, timeslot and location of the given event are booked.
+     *
+     * @param event the event to check for
+     * @return true if the booking exists, false otherwise
+     */
+    boolean contains(Event event);
+
+    /**
+     * Checks if the time of the given event, from its timeslot for its
+     * duration, overlaps an event booked at the same location.
+     *
+     * @param event the event to check for
+     * @return true if the event overlaps a booking, false otherwise
+     */
+    boolean overlaps(Event event);
+
+    /**
+     * Lists the events at a location that overlap a span of time.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @return the overlapping events in start order
+     */
+    List<Event> overlapping(Location location, long start, long end);
+
+    /**
+     * Prints all events in insertion order.
+     *
+     * @param report the report writer to render into
+     */
+    void print(ReportWriter report);
+
+    /**
+     * Prints all events ordered by date and timeslot.
+     *
+     * @param report the report writer to render into
+     */
+    void printByDate(ReportWriter report);
+
+    /**
+     * Prints all events ordered by campus and building.
+     *
+     * @param report the report writer to render into
+     */
+    void printByCampus(ReportWriter report);
+
+    /**
+     * Prints all events ordered by department.
+     *
+     * @param report the report writer to render into
+     */
+    void printByDepartment(ReportWriter report);
+
+    /**
+     * Prints the events from one date through another, ordered by date and
+     * timeslot, that pass a filter. Only the events in the range are visited.
+     *
+     * @param from   the first date of the range
+     * @param to     the last date of the range
+     * @param filter the test an event must pass to be printed
+     * @param report the report writer to render into
+     */
+    void printByDateRange(Date from, Date to, Predicate<Event> filter, ReportWriter report);
+
+    /**
+     * Copies the events from one date through another, ordered by date and
+     * timeslot. Only the events in the range are visited.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the events in the range by date
+     */
+    Event[] toArray(Date from, Date to);
+
+    /**
+     * Finds the earliest free bookings from one day through another.
+     *
+     * @param fromDay the epoch day of the first date to search
+     * @param toDay   the epoch day of the last date to search
+     * @param campus  the campus to search, or null for every campus
+     * @param found   receives the packed keys of the free bookings in date,
+     *                timeslot and location order
+     * @return the number of free bookings found, at most found.length
+     */
+    int findFree(int fromDay, int toDay, Campus campus, int[] found);
+
+    /**
+     * Gets the number of events in the calendar.
+     *
+     * @return the number of events
+     */
+    int size();
+
+    /**
+     * Gets the modification version of the calendar. It changes on every add
+     * and remove, so an output computed at one version is still current while
+     * the version is the same.
+     *
+     * @return the version
+     */
+    long getVersion();
+
+    /**
+     * Gets the booking statistics of the events in the calendar.
+     *
+     * @return the statistics of the events
+     */
+    BookingStats getStats();
+}
@@ -0,0 +1,134 @@
+package oopwithjava;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates booking load against a running booking server and reports the
+ * throughput and latency percentiles of the requests.
+ * Each worker thread keeps its share of the connections open and sends an A
+ * command, then the matching R command, on each of them in turn.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class BookingLoadClient {
+    private static final int BOOKING_DAYS = 150;
+    private static final double[] PERCENTILES = { 50, 99, 99.9 };
+
+    /**
+     * Runs the load test.
+     *
+     * @param args port, connections, requests per connection and worker threads
+     * @throws Exception if the server cannot be reached
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Usage: BookingLoadClient <port> <connections> <requests per connection> [threads]");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+        int connections = Integer.parseInt(args[1]);
+        int requests = Integer.parseInt(args[2]);
+        int threads = args.length > 3 ? Integer.parseInt(args[3])
+                : Math.min(connections, Runtime.getRuntime().availableProcessors() * 4);
+
+        long[][] latencies = new long[threads][];
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int worker = t;
+            int share = connections / threads + (t < connections % threads ? 1 : 0);
+            workers[t] = new Thread(() -> latencies[worker] = runWorker(port, share, requests));
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d requests over %d connections in %d ms (%d requests/sec)%n", all.length, connections,
+                elapsedNanos / Constants.NANOS_PER_MILLI, all.length * Constants.NANOS_PER_SECOND / elapsedNanos);
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.min(all.length - 1, Math.ceil(percentile / 100 * all.length) - 1);
+            System.out.printf("p%s: %d us%n", percentile, all[Math.max(index, 0)] / 1000);
+        }
+        System.out.printf("max: %d us%n", all.length == 0 ? 0 : all[all.length - 1] / 1000);
+    }
+
+    /**
+     * Opens the connections of one worker and drives requests over them.
+     *
+     * @param port        the server port
+     * @param connections the number of connections of this worker
+     * @param requests    the number of requests per connection
+     * @return the latency of every request in nanoseconds
+     */
+    private static long[] runWorker(int port, int connections, int requests) {
+        Socket[] sockets = new Socket[connections];
+        BufferedReader[] readers = new BufferedReader[connections];
+        OutputStream[] writers = new OutputStream[connections];
+        String[] bookings = new String[connections];
+        long[] latencies = new long[connections * requests];
+        int count = 0;
+        try {
+            for (int i = 0; i < connections; i++) {
+                sockets[i] = new Socket(InetAddress.getLoopbackAddress(), port);
+                sockets[i].setTcpNoDelay(true);
+                readers[i] = new BufferedReader(
+                        new InputStreamReader(sockets[i].getInputStream(), StandardCharsets.UTF_8));
+                writers[i] = sockets[i].getOutputStream();
+            }
+            for (int r = 0; r < requests; r++) {
+                for (int i = 0; i < connections; i++) {
+                    String command;
+                    if (r % 2 == 0) {
+                        bookings[i] = randomBooking();
+                        command = "A " + bookings[i] + " CS cs@rutgers.edu 60";
+                    } else {
+                        command = "R " + bookings[i];
+                    }
+                    long start = System.nanoTime();
+                    writers[i].write((command + "\n").getBytes(StandardCharsets.UTF_8));
+                    readers[i].readLine();
+                    latencies[count++] = System.nanoTime() - start;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Load client connection failed: " + e.getMessage());
+        } finally {
+            for (Socket socket : sockets) {
+                try {
+                    if (socket != null) {
+                        socket.close();
+                    }
+                } catch (IOException e) {
+                    // already gone
+                }
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * Picks a random date, timeslot and location inside the booking window.
+     *
+     * @return the booking details in command form
+     */
+    private static String randomBooking() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate date = LocalDate.now().plusDays(1 + random.nextInt(BOOKING_DAYS));
+        return date.getMonthValue() + "/" + date.getDayOfMonth() + "/" + date.getYear() + " "
+                + Timeslot.values()[random.nextInt(Timeslot.values().length)] + " "
+                + Location.values()[random.nextInt(Location.values().length)];
+    }
+}
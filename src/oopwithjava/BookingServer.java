@@ -0,0 +1,392 @@
+package oopwithjava;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the Event Organizer command protocol to many clients over TCP on
+ * localhost, all sharing one calendar.
+ * Connections are spread over a few selector event loops instead of getting a
+ * thread each, so thousands of idle or slow clients cost only their buffers.
+ * The calendar reports are rendered by a pool of report threads, so a long
+ * report only holds up the connection that asked for it; that connection's
+ * later commands wait until the report is written back.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class BookingServer {
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_LINE_LENGTH = 1 << 20;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final BookingCalendar calendar;
+    private final BookingWindow window;
+    private final int port;
+    private final EventLoop[] loops;
+    private final ExecutorService reports;
+
+    /**
+     * Initializes a server for the given calendar.
+     *
+     * @param calendar the calendar shared by all connections
+     * @param port     the localhost port to listen on
+     * @param loops    the number of event loop threads
+     */
+    public BookingServer(BookingCalendar calendar, int port, int loops) {
+        this(calendar, new BookingWindow(), port, loops);
+    }
+
+    /**
+     * Initializes a server for the given calendar and range of bookable dates.
+     *
+     * @param calendar the calendar shared by all connections
+     * @param window   the range of dates that can be booked, shared by all
+     *                 connections
+     * @param port     the localhost port to listen on
+     * @param loops    the number of event loop threads
+     */
+    public BookingServer(BookingCalendar calendar, BookingWindow window, int port, int loops) {
+        this.calendar = calendar;
+        this.window = window;
+        this.port = port;
+        this.loops = new EventLoop[loops];
+        this.reports = Executors.newFixedThreadPool(loops, task -> {
+            Thread thread = new Thread(task, "booking-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Accepts connections until the process ends, handing each one to an event
+     * loop in turn.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public void serve() throws IOException {
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop();
+            Thread thread = new Thread(loops[i], "booking-loop-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            System.out.println("Booking server listening on localhost:" + port);
+            int next = 0;
+            while (true) {
+                SocketChannel channel = server.accept();
+                loops[next].register(channel);
+                next = (next + 1) % loops.length;
+            }
+        }
+    }
+
+    /**
+     * The state of one client connection.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        private final BookingSession session;
+        private final ArrayDeque<ByteBuffer> pendingWrites;
+        private ByteBuffer input;
+        private boolean reporting; // a report thread is running a command of this connection
+        private byte[] reportOutput; // the response of the finished report, or null if it failed
+
+        /**
+         * Initializes the state of a new connection.
+         *
+         * @param channel the client channel
+         */
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.session = new BookingSession(calendar, window);
+            this.pendingWrites = new ArrayDeque<>();
+            this.input = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * A selector thread serving its share of the connections.
+     */
+    private class EventLoop implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<SocketChannel> registrations;
+        private final ConcurrentLinkedQueue<Connection> finishedReports;
+
+        /**
+         * Initializes an event loop with its own selector.
+         *
+         * @throws IOException if the selector cannot be opened
+         */
+        EventLoop() throws IOException {
+            this.selector = Selector.open();
+            this.registrations = new ConcurrentLinkedQueue<>();
+            this.finishedReports = new ConcurrentLinkedQueue<>();
+        }
+
+        /**
+         * Hands a newly accepted connection to this loop.
+         *
+         * @param channel the accepted channel
+         */
+        void register(SocketChannel channel) {
+            registrations.add(channel);
+            selector.wakeup();
+        }
+
+        /**
+         * Serves the connections of this loop until the process ends. A
+         * connection whose command fails unexpectedly is closed, and the loop
+         * goes on serving the others.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    selector.select();
+                    registerPending();
+                    finishReports();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        try {
+                            serve(key);
+                        } catch (RuntimeException e) {
+                            System.err.println("Booking server connection failed: " + e);
+                            close(key, (Connection) key.attachment());
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println("Booking server loop failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Runs a report command of a connection on a report thread, then hands
+         * the response back to this loop.
+         *
+         * @param connection  the connection that asked for the report
+         * @param commandLine the report command
+         */
+        private void runReport(Connection connection, String commandLine) {
+            byte[] response = null;
+            try {
+                connection.session.processCommand(commandLine);
+                response = connection.session.takeOutput();
+            } catch (RuntimeException e) {
+                System.err.println("Booking server report failed: " + e);
+            }
+            connection.reportOutput = response;
+            finishedReports.add(connection);
+            selector.wakeup();
+        }
+
+        /**
+         * Queues the responses of the reports finished since the last select
+         * and goes on with the commands that waited for them.
+         */
+        private void finishReports() {
+            Connection connection;
+            while ((connection = finishedReports.poll()) != null) {
+                SelectionKey key = connection.channel.keyFor(selector);
+                if (key == null || !key.isValid()) {
+                    continue;
+                }
+                try {
+                    if (connection.reportOutput == null) {
+                        close(key, connection);
+                        continue;
+                    }
+                    connection.pendingWrites.add(ByteBuffer.wrap(connection.reportOutput));
+                    connection.reportOutput = null;
+                    connection.reporting = false;
+                    processLines(connection);
+                    flush(key, connection);
+                } catch (IOException | RuntimeException e) {
+                    close(key, connection);
+                }
+            }
+        }
+
+        /**
+         * Registers the connections handed over since the last select.
+         *
+         * @throws IOException if a channel cannot be configured
+         */
+        private void registerPending() throws IOException {
+            SocketChannel channel;
+            while ((channel = registrations.poll()) != null) {
+                channel.configureBlocking(false);
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                } catch (ClosedChannelException e) {
+                    // the client went away before it was registered
+                }
+            }
+        }
+
+        /**
+         * Reads, processes and writes for one ready connection, closing it when
+         * the client disconnects or quits.
+         *
+         * @param key the selection key of the connection
+         */
+        private void serve(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable() && !read(connection)) {
+                    close(key, connection);
+                    return;
+                }
+                if (key.isValid()) {
+                    flush(key, connection);
+                }
+            } catch (IOException e) {
+                close(key, connection);
+            }
+        }
+
+        /**
+         * Writes the pending responses of a connection and picks what to wait
+         * for next: the rest of the responses, the running report, or the next
+         * commands. A client that quit is closed once everything is written.
+         *
+         * @param key        the selection key of the connection
+         * @param connection the connection
+         * @throws IOException if writing fails
+         */
+        private void flush(SelectionKey key, Connection connection) throws IOException {
+            if (!write(connection)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (connection.reporting) {
+                key.interestOps(0);
+            } else if (connection.session.isOpen()) {
+                key.interestOps(SelectionKey.OP_READ);
+            } else {
+                close(key, connection);
+            }
+        }
+
+        /**
+         * Reads what the client sent and processes its complete lines.
+         *
+         * @param connection the connection to read from
+         * @return false if the client closed the connection
+         * @throws IOException if reading fails
+         */
+        private boolean read(Connection connection) throws IOException {
+            if (!connection.input.hasRemaining()) {
+                if (connection.input.capacity() >= MAX_LINE_LENGTH) {
+                    return false;
+                }
+                ByteBuffer larger = ByteBuffer.allocate(connection.input.capacity() * 2);
+                connection.input.flip();
+                larger.put(connection.input);
+                connection.input = larger;
+            }
+            if (connection.channel.read(connection.input) < 0) {
+                return false;
+            }
+            processLines(connection);
+            return true;
+        }
+
+        /**
+         * Processes the complete lines received from a client, in order, up to
+         * the first report. The report is handed to a report thread, and the
+         * lines after it stay in the input buffer until it is done.
+         *
+         * @param connection the connection whose lines are processed
+         */
+        private void processLines(Connection connection) {
+            byte[] bytes = connection.input.array();
+            int limit = connection.input.position();
+            int lineStart = 0;
+            for (int i = 0; i < limit && connection.session.isOpen() && !connection.reporting; i++) {
+                if (bytes[i] == NEW_LINE) {
+                    int end = i > lineStart && bytes[i - 1] == CARRIAGE_RETURN ? i - 1 : i;
+                    String commandLine = new String(bytes, lineStart, end - lineStart, StandardCharsets.UTF_8);
+                    lineStart = i + 1;
+                    if (connection.session.isReport(commandLine)) {
+                        queueOutput(connection);
+                        connection.reporting = true;
+                        reports.execute(() -> runReport(connection, commandLine));
+                    } else {
+                        connection.session.processCommand(commandLine);
+                    }
+                }
+            }
+            connection.input.position(lineStart);
+            connection.input.limit(limit);
+            connection.input.compact();
+            if (!connection.reporting) {
+                queueOutput(connection);
+            }
+        }
+
+        /**
+         * Queues the responses collected by the session of a connection for
+         * writing.
+         *
+         * @param connection the connection
+         */
+        private void queueOutput(Connection connection) {
+            byte[] response = connection.session.takeOutput();
+            if (response.length > 0) {
+                connection.pendingWrites.add(ByteBuffer.wrap(response));
+            }
+        }
+
+        /**
+         * Writes as much of the pending responses as the socket accepts.
+         *
+         * @param connection the connection to write to
+         * @return true if all pending responses were written
+         * @throws IOException if writing fails
+         */
+        private boolean write(Connection connection) throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = connection.pendingWrites.peek()) != null) {
+                connection.channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    return false;
+                }
+                connection.pendingWrites.poll();
+            }
+            return true;
+        }
+
+        /**
+         * Closes a connection.
+         *
+         * @param key        the selection key of the connection
+         * @param connection the connection to close
+         */
+        private void close(SelectionKey key, Connection connection) {
+            key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                // nothing left to do for this client
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package oopwithjava;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Handles the command protocol of one booking server connection.
+ * It understands the A, R, P, PE, PC, PD, PR, FIND and Q commands of the Event Organizer
+ * and collects the responses in a buffer until the server writes them back.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class BookingSession {
+    private final BookingCalendar calendar;
+    private final ByteArrayOutputStream output;
+    private final PrintStream out;
+    private final ReportWriter report;
+    private final EventParser parser;
+    private final BookingWindow window;
+    private final int[] freeBookings;
+    private final LineTokenizer tokenizer;
+    private boolean open;
+
+    /**
+     * Initializes a session working on a shared calendar.
+     *
+     * @param calendar the calendar shared by all sessions
+     */
+    public BookingSession(BookingCalendar calendar) {
+        this(calendar, new BookingWindow());
+    }
+
+    /**
+     * Initializes a session working on a shared calendar.
+     *
+     * @param calendar the calendar shared by all sessions
+     * @param window   the range of dates that can be booked
+     */
+    public BookingSession(BookingCalendar calendar, BookingWindow window) {
+        this.calendar = calendar;
+        this.output = new ByteArrayOutputStream();
+        this.out = new PrintStream(output, false, StandardCharsets.UTF_8);
+        this.report = new ReportWriter(out);
+        this.parser = new EventParser(out, window);
+        this.window = window;
+        this.freeBookings = new int[Constants.FREE_BOOKINGS_LISTED];
+        this.tokenizer = new LineTokenizer();
+        this.open = true;
+    }
+
+    /**
+     * Processes one command line of the client.
+     *
+     * @param commandLine the command line
+     */
+    public void processCommand(String commandLine) {
+        tokenizer.reset(commandLine);
+        if (!tokenizer.hasMoreTokens()) {
+            return;
+        }
+        Command command = Command.next(tokenizer);
+        if (command == null) {
+            out.println(tokenizer.token() + " is an invalid command!");
+            return;
+        }
+        try {
+            switch (command) {
+                case Q -> {
+                    out.println("Event Organizer terminated.");
+                    open = false;
+                }
+                case A -> addEvent(tokenizer);
+                case R -> removeEvent(tokenizer);
+                case P -> calendar.print(report);
+                case PE -> calendar.printByDate(report);
+                case PC -> calendar.printByCampus(report);
+                case PD -> calendar.printByDepartment(report);
+                case PR -> printRange(tokenizer);
+                case FIND -> findFree(tokenizer);
+                default -> out.println(tokenizer.token() + " is an invalid command!");
+            }
+        } catch (NoSuchElementException | NumberFormatException e) {
+            out.println("Error parsing event details.");
+        }
+    }
+
+    /**
+     * Checks if a command line asks for one of the calendar reports, P, PE,
+     * PC, PD or PR, whose rendering grows with the calendar.
+     *
+     * @param commandLine the command line
+     * @return true if the command is a report
+     */
+    public boolean isReport(String commandLine) {
+        tokenizer.reset(commandLine);
+        if (!tokenizer.hasMoreTokens()) {
+            return false;
+        }
+        Command command = Command.next(tokenizer);
+        return command == Command.P || command == Command.PE || command == Command.PC || command == Command.PD
+                || command == Command.PR;
+    }
+
+    /**
+     * Prints the events between two dates, optionally only those of one campus
+     * or department.
+     *
+     * @param tokenizer the tokenizer containing the dates and the filter
+     */
+    private void printRange(LineTokenizer tokenizer) {
+        if (tokenizer.countTokens() < 2) {
+            out.println("Missing date range!");
+            return;
+        }
+        Date from = parser.parseRangeDate(tokenizer);
+        if (from == null)
+            return;
+        Date to = parser.parseRangeDate(tokenizer);
+        if (to == null)
+            return;
+        Predicate<Event> filter = parser.parseFilter(tokenizer);
+        if (filter == null)
+            return;
+        calendar.printByDateRange(from, to, filter, report);
+    }
+
+    /**
+     * Lists the earliest free bookings between two dates, optionally only on
+     * one campus. Only dates inside the booking window are searched.
+     *
+     * @param tokenizer the tokenizer containing the dates and the campus
+     */
+    private void findFree(LineTokenizer tokenizer) {
+        if (tokenizer.countTokens() < 2) {
+            out.println("Missing date range!");
+            return;
+        }
+        Date from = parser.parseRangeDate(tokenizer);
+        if (from == null)
+            return;
+        Date to = parser.parseRangeDate(tokenizer);
+        if (to == null)
+            return;
+        Campus campus = null;
+        if (tokenizer.hasMoreTokens()) {
+            campus = tokenizer.nextEnum(EventParser.CAMPUSES);
+            if (campus == null) {
+                out.println(tokenizer.token() + ": Invalid campus!");
+                return;
+            }
+        }
+        int fromDay = Math.max(from.toEpochDay(), window.getFirstDay());
+        int toDay = Math.min(to.toEpochDay(), window.getLastDay());
+        int count = fromDay > toDay ? 0 : calendar.findFree(fromDay, toDay, campus, freeBookings);
+        report.writeFreeBookings(from, to, freeBookings, count);
+    }
+
+    /**
+     * Adds an event to the shared calendar; the conflict check and the insert
+     * are one atomic step of the calendar.
+     *
+     * @param tokenizer the tokenizer containing the event details
+     */
+    private void addEvent(LineTokenizer tokenizer) {
+        Event newEvent = parser.parseEvent(tokenizer);
+        if (newEvent == null)
+            return;
+        if (EventOrganizer.conflict(newEvent, calendar)) {
+            out.println("The event is already on the calendar.");
+            return;
+        }
+        if (!parser.durationCheck(newEvent.getDuration()))
+            return;
+        if (calendar.add(newEvent)) {
+            out.println("Event added to the calendar.");
+        } else {
+            out.println("The event is already on the calendar.");
+        }
+    }
+
+    /**
+     * Removes an event from the shared calendar.
+     *
+     * @param tokenizer the tokenizer containing the booking details
+     */
+    private void removeEvent(LineTokenizer tokenizer) {
+        Event removeEvent = parser.parseBooking(tokenizer);
+        if (removeEvent == null)
+            return;
+        if (calendar.remove(removeEvent)) {
+            out.println("Event has been removed from the calendar!");
+        } else {
+            out.println("Cannot remove; event is not in the calendar!");
+        }
+    }
+
+    /**
+     * Takes the responses collected since the last call.
+     *
+     * @return the response bytes, possibly empty
+     */
+    public byte[] takeOutput() {
+        out.flush();
+        byte[] bytes = output.toByteArray();
+        output.reset();
+        return bytes;
+    }
+
+    /**
+     * Checks if the client has not quit yet.
+     *
+     * @return true until the Q command is processed
+     */
+    public boolean isOpen() {
+        return open;
+    }
+}
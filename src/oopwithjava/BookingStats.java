@@ -0,0 +1,329 @@
+package oopwithjava;
+
+import java.util.Arrays;
+
+/**
+ * Keeps counts of events and sums of booked minutes for the events of a
+ * calendar, by department, campus, location, timeslot, and location per month.
+ * The counters are primitive arrays indexed by ordinal that are updated on
+ * every add and remove, so every statistic is read in constant time.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class BookingStats {
+    public static final String HEADER = "* Booking statistics *";
+    public static final String FOOTER = "* end of booking statistics *";
+    private static final int LOCATIONS = Location.values().length;
+    private static final long[] NO_MINUTES = new long[LOCATIONS]; // a month row with nothing booked
+
+    private int events;
+    private long minutes;
+    private final int[] eventsByDepartment;
+    private final long[] minutesByDepartment;
+    private final int[] eventsByCampus;
+    private final long[] minutesByCampus;
+    private final int[] eventsByLocation;
+    private final long[] minutesByLocation;
+    private final int[] eventsByTimeslot;
+    private final long[] minutesByTimeslot;
+    private long[] minutesByMonth; // month, then location
+    private int baseMonth; // month number of the first row of minutesByMonth
+    private int months; // rows of minutesByMonth in use
+
+    /**
+     * Initializes the statistics of an empty calendar.
+     */
+    public BookingStats() {
+        this.eventsByDepartment = new int[Department.values().length];
+        this.minutesByDepartment = new long[Department.values().length];
+        this.eventsByCampus = new int[Campus.values().length];
+        this.minutesByCampus = new long[Campus.values().length];
+        this.eventsByLocation = new int[LOCATIONS];
+        this.minutesByLocation = new long[LOCATIONS];
+        this.eventsByTimeslot = new int[Timeslot.values().length];
+        this.minutesByTimeslot = new long[Timeslot.values().length];
+        this.minutesByMonth = new long[0];
+    }
+
+    /**
+     * Counts an event added to the calendar.
+     *
+     * @param event the added event
+     */
+    public void add(Event event) {
+        record(event, 1);
+    }
+
+    /**
+     * Uncounts an event removed from the calendar.
+     *
+     * @param event the removed event
+     */
+    public void remove(Event event) {
+        record(event, -1);
+    }
+
+    /**
+     * Adds every count of other statistics to these, as when the statistics
+     * of several partitions of a calendar are combined. The cost depends on
+     * the number of months booked, not on the number of events.
+     *
+     * @param other the statistics to add
+     */
+    public void addAll(BookingStats other) {
+        events += other.events;
+        minutes += other.minutes;
+        add(eventsByDepartment, other.eventsByDepartment);
+        add(minutesByDepartment, other.minutesByDepartment);
+        add(eventsByCampus, other.eventsByCampus);
+        add(minutesByCampus, other.minutesByCampus);
+        add(eventsByLocation, other.eventsByLocation);
+        add(minutesByLocation, other.minutesByLocation);
+        add(eventsByTimeslot, other.eventsByTimeslot);
+        add(minutesByTimeslot, other.minutesByTimeslot);
+        for (int row = 0; row < other.months; row++) {
+            int from = row * LOCATIONS;
+            if (Arrays.equals(other.minutesByMonth, from, from + LOCATIONS, NO_MINUTES, 0, LOCATIONS)) {
+                continue;
+            }
+            int to = monthRow(other.baseMonth + row) * LOCATIONS;
+            for (int location = 0; location < LOCATIONS; location++) {
+                minutesByMonth[to + location] += other.minutesByMonth[from + location];
+            }
+        }
+    }
+
+    /**
+     * Adds counters element by element.
+     *
+     * @param counters the counters to add to
+     * @param other    the counters to add
+     */
+    private static void add(int[] counters, int[] other) {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other[i];
+        }
+    }
+
+    /**
+     * Adds sums element by element.
+     *
+     * @param sums  the sums to add to
+     * @param other the sums to add
+     */
+    private static void add(long[] sums, long[] other) {
+        for (int i = 0; i < sums.length; i++) {
+            sums[i] += other[i];
+        }
+    }
+
+    /**
+     * Adds an event to, or subtracts it from, every counter.
+     *
+     * @param event the event
+     * @param sign  1 to count the event, -1 to uncount it
+     */
+    private void record(Event event, int sign) {
+        int duration = sign * event.getDuration();
+        int department = event.getContact().getDepartment().ordinal();
+        int location = event.getLocation().ordinal();
+        int campus = event.getLocation().getCampus().ordinal();
+        int timeslot = event.getTimeslot().ordinal();
+        int month = monthRow(month(event.getDate()));
+        events += sign;
+        minutes += duration;
+        eventsByDepartment[department] += sign;
+        minutesByDepartment[department] += duration;
+        eventsByCampus[campus] += sign;
+        minutesByCampus[campus] += duration;
+        eventsByLocation[location] += sign;
+        minutesByLocation[location] += duration;
+        eventsByTimeslot[timeslot] += sign;
+        minutesByTimeslot[timeslot] += duration;
+        minutesByMonth[month * LOCATIONS + location] += duration;
+    }
+
+    /**
+     * Numbers the month of a date, counting months from year 0.
+     *
+     * @param date the date
+     * @return the month number
+     */
+    private static int month(Date date) {
+        return date.getYear() * Constants.MONTHS_COUNT + date.getMonth() - 1;
+    }
+
+    /**
+     * Finds the row of a month in the monthly minutes, adding rows so that the
+     * month is covered.
+     *
+     * @param month the month number
+     * @return the row of the month
+     */
+    private int monthRow(int month) {
+        if (months == 0) {
+            baseMonth = month;
+        }
+        if (month < baseMonth) {
+            int shift = Math.max(baseMonth - month, months);
+            long[] rows = new long[(months + shift) * LOCATIONS];
+            System.arraycopy(minutesByMonth, 0, rows, shift * LOCATIONS, months * LOCATIONS);
+            minutesByMonth = rows;
+            baseMonth -= shift;
+            months += shift;
+        } else if (month >= baseMonth + months) {
+            int needed = month - baseMonth + 1;
+            long[] rows = new long[Math.max(needed, months * 2) * LOCATIONS];
+            System.arraycopy(minutesByMonth, 0, rows, 0, months * LOCATIONS);
+            minutesByMonth = rows;
+            months = rows.length / LOCATIONS;
+        }
+        return month - baseMonth;
+    }
+
+    /**
+     * Gets the number of events.
+     *
+     * @return the number of events
+     */
+    public int getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the total booked minutes.
+     *
+     * @return the booked minutes
+     */
+    public long getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Gets the number of events of a department.
+     *
+     * @param department the department
+     * @return the number of its events
+     */
+    public int getEvents(Department department) {
+        return eventsByDepartment[department.ordinal()];
+    }
+
+    /**
+     * Gets the booked minutes of a department.
+     *
+     * @param department the department
+     * @return the minutes of its events
+     */
+    public long getMinutes(Department department) {
+        return minutesByDepartment[department.ordinal()];
+    }
+
+    /**
+     * Gets the number of events on a campus.
+     *
+     * @param campus the campus
+     * @return the number of its events
+     */
+    public int getEvents(Campus campus) {
+        return eventsByCampus[campus.ordinal()];
+    }
+
+    /**
+     * Gets the booked minutes on a campus.
+     *
+     * @param campus the campus
+     * @return the minutes of its events
+     */
+    public long getMinutes(Campus campus) {
+        return minutesByCampus[campus.ordinal()];
+    }
+
+    /**
+     * Gets the number of events at a location.
+     *
+     * @param location the location
+     * @return the number of its events
+     */
+    public int getEvents(Location location) {
+        return eventsByLocation[location.ordinal()];
+    }
+
+    /**
+     * Gets the booked minutes at a location.
+     *
+     * @param location the location
+     * @return the minutes of its events
+     */
+    public long getMinutes(Location location) {
+        return minutesByLocation[location.ordinal()];
+    }
+
+    /**
+     * Gets the number of events in a timeslot.
+     *
+     * @param timeslot the timeslot
+     * @return the number of its events
+     */
+    public int getEvents(Timeslot timeslot) {
+        return eventsByTimeslot[timeslot.ordinal()];
+    }
+
+    /**
+     * Gets the booked minutes in a timeslot.
+     *
+     * @param timeslot the timeslot
+     * @return the minutes of its events
+     */
+    public long getMinutes(Timeslot timeslot) {
+        return minutesByTimeslot[timeslot.ordinal()];
+    }
+
+    /**
+     * Gets the booked minutes at a location in the month of a date.
+     *
+     * @param location the location
+     * @param date     any date in the month
+     * @return the minutes of the location's events in that month
+     */
+    public long getMinutes(Location location, Date date) {
+        int row = month(date) - baseMonth;
+        if (row < 0 || row >= months) {
+            return 0;
+        }
+        return minutesByMonth[row * LOCATIONS + location.ordinal()];
+    }
+
+    /**
+     * Renders every statistic as a report and flushes it. The room minutes are
+     * given for the month of the given date.
+     *
+     * @param report the report writer to render into
+     * @param date   any date in the month of the room minutes
+     */
+    public void writeReport(ReportWriter report, Date date) {
+        String month = date.getMonth() + "/" + date.getYear();
+        report.appendLine(HEADER);
+        report.appendLine("Total: " + events + " events, " + minutes + " minutes");
+        for (Department department : Department.values()) {
+            report.appendLine(department.getFullName() + ": " + getEvents(department) + " events, "
+                    + getMinutes(department) + " minutes");
+        }
+        for (Campus campus : Campus.values()) {
+            report.appendLine(campus.getName() + ": " + getEvents(campus) + " events, " + getMinutes(campus)
+                    + " minutes");
+        }
+        for (Location location : Location.values()) {
+            report.appendLine(location.name() + " (" + location.getBuilding() + ", " + location.getCampus() + "): "
+                    + getEvents(location) + " events, " + getMinutes(location) + " minutes, "
+                    + getMinutes(location, date) + " minutes in " + month);
+        }
+        for (Timeslot timeslot : Timeslot.values()) {
+            report.appendLine(timeslot.name() + ": " + getEvents(timeslot) + " events, " + getMinutes(timeslot)
+                    + " minutes");
+        }
+        report.appendLine(FOOTER);
+        report.flush();
+    }
+}
@@ -0,0 +1,121 @@
+package oopwithjava;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * The range of dates that can be booked: from today through the same day 6
+ * months ahead, or the last day of that month if it is shorter.
+ * The range is computed once per day from a clock and kept as two epoch days,
+ * so checking a date is two integer comparisons. A fixed clock makes scripted
+ * runs independent of the real date.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class BookingWindow {
+    private static final int MONTHS_AHEAD = 6;
+
+    private final Clock clock;
+    private volatile Bounds bounds;
+
+    /**
+     * The window of one day, valid until the clock reaches the next day.
+     */
+    private static final class Bounds {
+        private final int firstDay;
+        private final int lastDay;
+        private final long expiresMillis;
+
+        /**
+         * Computes the window of the day the clock is on.
+         *
+         * @param clock the clock to read
+         */
+        Bounds(Clock clock) {
+            ZoneId zone = clock.getZone();
+            LocalDate today = LocalDate.now(clock);
+            this.firstDay = (int) today.toEpochDay();
+            this.lastDay = (int) today.plusMonths(MONTHS_AHEAD).toEpochDay();
+            this.expiresMillis = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * Initializes a window that follows the system clock in the default time
+     * zone.
+     */
+    public BookingWindow() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Initializes a window that follows the given clock.
+     *
+     * @param clock the clock telling today's date
+     */
+    public BookingWindow(Clock clock) {
+        this.clock = clock;
+        this.bounds = new Bounds(clock);
+    }
+
+    /**
+     * Creates a window that always starts on the given day.
+     *
+     * @param today the day to treat as today
+     * @return the window of that day
+     */
+    public static BookingWindow startingOn(Date today) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = LocalDate.ofEpochDay(today.toEpochDay());
+        return new BookingWindow(Clock.fixed(day.atStartOfDay(zone).toInstant(), zone));
+    }
+
+    /**
+     * Locates a day relative to the window.
+     *
+     * @param epochDay the day to locate
+     * @return a negative integer if the day is before today, zero if it is in
+     *         the window, or a positive integer if it is more than 6 months ahead
+     */
+    public int locate(int epochDay) {
+        Bounds current = current();
+        if (epochDay < current.firstDay) {
+            return -1;
+        }
+        return epochDay > current.lastDay ? 1 : 0;
+    }
+
+    /**
+     * Gets the first bookable day, which is today.
+     *
+     * @return the epoch day of today
+     */
+    public int getFirstDay() {
+        return current().firstDay;
+    }
+
+    /**
+     * Gets the last bookable day.
+     *
+     * @return the epoch day 6 months from today
+     */
+    public int getLastDay() {
+        return current().lastDay;
+    }
+
+    /**
+     * Gets the window of today, recomputing it once the day has changed.
+     *
+     * @return the current bounds
+     */
+    private Bounds current() {
+        Bounds current = bounds;
+        if (clock.millis() >= current.expiresMillis) {
+            current = new Bounds(clock);
+            bounds = current;
+        }
+        return current;
+    }
+}
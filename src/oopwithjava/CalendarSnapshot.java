@@ -0,0 +1,184 @@
+package oopwithjava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Saves a calendar to, and loads it from, a compact binary snapshot file.
+ * The file has a header with a checksum of the header and the rest of the
+ * file, a table of the distinct email addresses, and one fixed-width record
+ * per event holding the epoch day, timeslot, location and department
+ * ordinals, the duration and the index of the email address. Loading maps the
+ * file and builds the calendar directly, without parsing or re-validating any
+ * event.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class CalendarSnapshot {
+    private static final int MAGIC = 0x4556434C; // "EVCL"
+    private static final short VERSION = 1;
+    // magic, version, event count, email count
+    private static final int CHECKED_HEADER_BYTES = Integer.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES;
+    // the checked header fields followed by the checksum
+    private static final int HEADER_BYTES = CHECKED_HEADER_BYTES + Long.BYTES;
+    // epoch day, timeslot, location, department, unused, duration, email index
+    private static final int RECORD_BYTES = Integer.BYTES + 4 + Short.BYTES + Short.BYTES;
+    private static final int MAX_EMAILS = 1 << Short.SIZE;
+
+    /**
+     * Writes a snapshot of a calendar.
+     *
+     * @param path     the snapshot file, replaced if it exists
+     * @param calendar the calendar to save
+     * @return the number of events saved
+     * @throws IOException if the file cannot be written or the calendar has more
+     *                     distinct email addresses than the format supports
+     */
+    public static int save(Path path, BookingCalendar calendar) throws IOException {
+        int count = calendar.size();
+        HashMap<String, Integer> emailIndex = new HashMap<>();
+        ArrayList<byte[]> emails = new ArrayList<>();
+        int emailBytes = 0;
+        for (Event event : calendar) {
+            String email = event.getContact().getEmail();
+            if (!emailIndex.containsKey(email)) {
+                if (emails.size() == MAX_EMAILS) {
+                    throw new IOException("too many distinct email addresses");
+                }
+                byte[] bytes = email.getBytes(StandardCharsets.UTF_8);
+                emailIndex.put(email, emails.size());
+                emails.add(bytes);
+                emailBytes += Short.BYTES + bytes.length;
+            }
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(emailBytes + count * RECORD_BYTES);
+        for (byte[] email : emails) {
+            body.putShort((short) email.length);
+            body.put(email);
+        }
+        for (Event event : calendar) {
+            body.putInt(event.getDate().toEpochDay());
+            body.put((byte) event.getTimeslot().ordinal());
+            body.put((byte) event.getLocation().ordinal());
+            body.put((byte) event.getContact().getDepartment().ordinal());
+            body.put((byte) 0);
+            body.putShort((short) event.getDuration());
+            body.putShort((short) (int) emailIndex.get(event.getContact().getEmail()));
+        }
+        body.flip();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putShort(VERSION).putInt(count).putInt(emails.size());
+        CRC32 checksum = new CRC32();
+        checksum.update(header.array(), 0, CHECKED_HEADER_BYTES);
+        checksum.update(body.duplicate());
+        header.putLong(checksum.getValue());
+        header.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[] { header, body });
+            }
+            channel.force(false);
+        }
+        return count;
+    }
+
+    /**
+     * Loads a snapshot into a new calendar.
+     *
+     * @param path the snapshot file
+     * @return the loaded calendar
+     * @throws IOException if the file cannot be read, or is not an intact
+     *                     snapshot
+     */
+    public static EventCalendar load(Path path) throws IOException {
+        EventCalendar calendar = new EventCalendar();
+        calendar.addAll(read(path));
+        return calendar;
+    }
+
+    /**
+     * Loads a snapshot into a new columnar calendar.
+     *
+     * @param path the snapshot file
+     * @return the loaded calendar
+     * @throws IOException if the file cannot be read, or is not an intact
+     *                     snapshot
+     */
+    public static ColumnarEventCalendar loadColumnar(Path path) throws IOException {
+        ColumnarEventCalendar calendar = new ColumnarEventCalendar();
+        calendar.addAll(read(path));
+        return calendar;
+    }
+
+    /**
+     * Reads the events of a snapshot.
+     *
+     * @param path the snapshot file
+     * @return the events in the saved order
+     * @throws IOException if the file cannot be read, or is not an intact
+     *                     snapshot
+     */
+    private static Event[] read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("not a calendar snapshot");
+            }
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (file.getInt() != MAGIC || file.getShort() != VERSION) {
+                throw new IOException("not a calendar snapshot");
+            }
+            int count = file.getInt();
+            int emailCount = file.getInt();
+            long expected = file.getLong();
+            CRC32 checksum = new CRC32();
+            checksum.update(file.slice(0, CHECKED_HEADER_BYTES));
+            checksum.update(file.slice());
+            if (checksum.getValue() != expected || count < 0 || emailCount < 0) {
+                throw new IOException("snapshot checksum mismatch");
+            }
+
+            Department[] departments = Department.values();
+            String[] emails = new String[emailCount];
+            for (int i = 0; i < emailCount; i++) {
+                byte[] bytes = new byte[Short.toUnsignedInt(file.getShort())];
+                file.get(bytes);
+                emails[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            if (file.remaining() != (long) count * RECORD_BYTES) {
+                throw new IOException("snapshot size mismatch");
+            }
+            Contact[][] contacts = new Contact[departments.length][emailCount];
+
+            Timeslot[] timeslots = Timeslot.values();
+            Location[] locations = Location.values();
+            Event[] events = new Event[count];
+            for (int i = 0; i < count; i++) {
+                Date date = Date.ofEpochDay(file.getInt());
+                Timeslot timeslot = timeslots[file.get()];
+                Location location = locations[file.get()];
+                int department = file.get();
+                file.get();
+                int duration = file.getShort();
+                int email = Short.toUnsignedInt(file.getShort());
+                Contact contact = contacts[department][email];
+                if (contact == null) {
+                    contact = new Contact(departments[department], emails[email]);
+                    contacts[department][email] = contact;
+                }
+                events[i] = new Event(date, timeslot, location, contact, duration);
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package oopwithjava;
+
+/**
+ * Represents the campuses where the event locations are.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public enum Campus {
+    BUSCH("Busch"),
+    COLLEGE_AVENUE("College Avenue"),
+    LIVINGSTON("Livingston");
+
+    private final String name;
+
+    /**
+     * Constructs a Campus with the given name.
+     *
+     * @param name the name of the campus
+     */
+    private Campus(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name of the campus.
+     *
+     * @return the name of the campus
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the name of the campus.
+     *
+     * @return the name of the campus
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
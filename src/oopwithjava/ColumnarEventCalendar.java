@@ -0,0 +1,961 @@
+package oopwithjava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Represents an Event Calendar that stores its events column by column.
+ * Each event is a row across parallel primitive arrays: the epoch day, the
+ * timeslot, location and department ordinals, the duration, and the index of
+ * the email in a table of distinct addresses. A row takes about 21 bytes with
+ * its index entry, against a few hundred for an event object in the ordered
+ * views of EventCalendar. Event objects are only created when events are read.
+ * Instead of ordered views, the rows are kept in date order as a sorted array
+ * of packed booking keys, built the first time a report needs it; rows added
+ * later are collected apart and merged in once there are many of them, so a
+ * date range is found by binary search, and the campus and department reports
+ * only bucket the rows of the date order.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class ColumnarEventCalendar implements BookingCalendar {
+    private static final byte REMOVED = -1; // timeslot of a removed row
+    private static final int EMPTY = -1; // free slot of the row index
+    private static final int MIN_INDEX_SIZE = 16;
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int MIN_RECENT = 1024; // rows added before the date order is merged, at least
+    private static final int RECENT_SHARE = 64; // and at least this fraction of the ordered rows
+    private static final Timeslot[] TIMESLOTS = Timeslot.values();
+    private static final Location[] LOCATIONS = Location.values();
+    private static final Department[] DEPARTMENTS = Department.values();
+
+    private int[] days;
+    private byte[] timeslots;
+    private byte[] locations;
+    private byte[] departments;
+    private short[] durations;
+    private int[] emails;
+    private int numEvents;
+    private int end; // rows in use, including the removed ones
+    private int modCount; // structural changes, checked by iterators to fail fast
+    private long version; // adds and removes, for caching outputs of the calendar
+    private int[] index; // open addressing table of rows by packed booking key
+    private String[] strings; // distinct email addresses
+    private Contact[] contacts; // last contact made for each email address
+    private int numStrings;
+    private HashMap<String, Integer> stringIndex;
+    private OccupancyMap occupancy;
+    private BookingStats stats;
+    private int longest; // longest duration stored, bounding how early an overlapping row can start
+    // packed booking key in the high half and row in the low half, sorted; null until a report needs it
+    private long[] dateOrder;
+    private int ordered; // entries of dateOrder in use
+    private long[] recent; // entries of the rows added since dateOrder was last merged
+    private int numRecent;
+    private boolean recentSorted;
+
+    /**
+     * Initializes an empty columnar Event Calendar with an initial capacity.
+     */
+    public ColumnarEventCalendar() {
+        this.days = new int[Constants.INITIAL_CAPACITY];
+        this.timeslots = new byte[Constants.INITIAL_CAPACITY];
+        this.locations = new byte[Constants.INITIAL_CAPACITY];
+        this.departments = new byte[Constants.INITIAL_CAPACITY];
+        this.durations = new short[Constants.INITIAL_CAPACITY];
+        this.emails = new int[Constants.INITIAL_CAPACITY];
+        this.index = new int[MIN_INDEX_SIZE];
+        Arrays.fill(index, EMPTY);
+        this.strings = new String[Constants.INITIAL_CAPACITY];
+        this.contacts = new Contact[Constants.INITIAL_CAPACITY];
+        this.stringIndex = new HashMap<>();
+        this.occupancy = new OccupancyMap();
+        this.stats = new BookingStats();
+        this.recent = new long[MIN_RECENT];
+    }
+
+    /**
+     * Computes the packed booking key of a row.
+     *
+     * @param row the row
+     * @return the packed key of its date, timeslot and location
+     */
+    private int key(int row) {
+        return OccupancyMap.key(days[row], TIMESLOTS[timeslots[row]], LOCATIONS[locations[row]]);
+    }
+
+    /**
+     * Computes the home slot of a packed key in the row index.
+     *
+     * @param key the packed key
+     * @return the slot the search for the key starts at
+     */
+    private int slot(int key) {
+        return (key * HASH_MULTIPLIER) >>> (Integer.SIZE - Integer.numberOfTrailingZeros(index.length));
+    }
+
+    /**
+     * Finds the row booked on a packed key.
+     *
+     * @param key the packed key
+     * @return the row, or Constants.NOT_FOUND if the booking is free
+     */
+    private int find(int key) {
+        int mask = index.length - 1;
+        for (int i = slot(key); index[i] != EMPTY; i = (i + 1) & mask) {
+            if (key(index[i]) == key) {
+                return index[i];
+            }
+        }
+        return Constants.NOT_FOUND;
+    }
+
+    /**
+     * Enters a row into the row index, growing the index to keep it at most
+     * half full.
+     *
+     * @param row the row
+     */
+    private void indexRow(int row) {
+        if (2 * (numEvents + 1) > index.length) {
+            rebuildIndex(index.length * 2);
+        }
+        insert(row);
+    }
+
+    /**
+     * Enters a row into the first free slot after its home slot.
+     *
+     * @param row the row
+     */
+    private void insert(int row) {
+        int mask = index.length - 1;
+        int i = slot(key(row));
+        while (index[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        index[i] = row;
+    }
+
+    /**
+     * Removes a row from the row index, shifting back the rows that follow it
+     * in the probe sequence so no search stops early.
+     *
+     * @param key the packed key of the row
+     */
+    private void unindex(int key) {
+        int mask = index.length - 1;
+        int hole = slot(key);
+        while (key(index[hole]) != key) {
+            hole = (hole + 1) & mask;
+        }
+        for (int i = (hole + 1) & mask; index[i] != EMPTY; i = (i + 1) & mask) {
+            int home = slot(key(index[i]));
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                index[hole] = index[i];
+                hole = i;
+            }
+        }
+        index[hole] = EMPTY;
+    }
+
+    /**
+     * Rebuilds the row index from the live rows.
+     *
+     * @param size the number of slots, a power of two
+     */
+    private void rebuildIndex(int size) {
+        index = new int[size];
+        Arrays.fill(index, EMPTY);
+        for (int row = 0; row < end; row++) {
+            if (timeslots[row] != REMOVED) {
+                insert(row);
+            }
+        }
+    }
+
+    /**
+     * Makes room in the columns for more events. The columns at least double
+     * when they grow, so adding n events copies O(n) elements in total.
+     *
+     * @param count the number of events about to be added
+     */
+    private void ensureCapacity(int count) {
+        if (end + count <= days.length) {
+            return;
+        }
+        compact();
+        if (end + count > days.length) {
+            int capacity = Math.max(end + count, days.length + Math.max(days.length, Constants.GROWTH_AMOUNT));
+            days = Arrays.copyOf(days, capacity);
+            timeslots = Arrays.copyOf(timeslots, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+            departments = Arrays.copyOf(departments, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            emails = Arrays.copyOf(emails, capacity);
+        }
+    }
+
+    /**
+     * Closes the gaps left by removed rows, keeping the rows in insertion order,
+     * and rebuilds the row index.
+     */
+    private void compact() {
+        if (end == numEvents) {
+            return;
+        }
+        int live = 0;
+        for (int row = 0; row < end; row++) {
+            if (timeslots[row] != REMOVED) {
+                days[live] = days[row];
+                timeslots[live] = timeslots[row];
+                locations[live] = locations[row];
+                departments[live] = departments[row];
+                durations[live] = durations[row];
+                emails[live] = emails[row];
+                live++;
+            }
+        }
+        end = live;
+        modCount++;
+        rebuildIndex(index.length);
+        dateOrder = null;
+        numRecent = 0;
+    }
+
+    /**
+     * Finds the index of an email address in the string table, adding it if it
+     * is new.
+     *
+     * @param email the email address
+     * @return the index of the address
+     */
+    private int intern(String email) {
+        Integer known = stringIndex.get(email);
+        if (known != null) {
+            return known;
+        }
+        if (numStrings == strings.length) {
+            strings = Arrays.copyOf(strings, numStrings * 2);
+            contacts = Arrays.copyOf(contacts, numStrings * 2);
+        }
+        strings[numStrings] = email;
+        stringIndex.put(email, numStrings);
+        return numStrings++;
+    }
+
+    /**
+     * Adds an event, unless its date, timeslot and location are already booked.
+     *
+     * @param event the event to be added
+     * @return true if the event was added, false if it conflicts with a booking
+     */
+    @Override
+    public boolean add(Event event) {
+        if (!occupancy.add(OccupancyMap.key(event))) {
+            return false;
+        }
+        ensureCapacity(1);
+        append(event);
+        return true;
+    }
+
+    /**
+     * Adds a batch of events, skipping every event that conflicts with a
+     * booking on the calendar or earlier in the batch. The columns are sized
+     * for the whole batch up front.
+     *
+     * @param batch the events to be added
+     * @return the number of events added
+     */
+    @Override
+    public int addAll(Event[] batch) {
+        ensureCapacity(batch.length);
+        int added = 0;
+        for (Event event : batch) {
+            if (occupancy.add(OccupancyMap.key(event))) {
+                append(event);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Stores an event whose booking is already marked in the occupancy map in
+     * the next free row.
+     *
+     * @param event the event to store
+     */
+    private void append(Event event) {
+        Contact contact = event.getContact();
+        int row = end;
+        days[row] = event.getDate().toEpochDay();
+        timeslots[row] = (byte) event.getTimeslot().ordinal();
+        locations[row] = (byte) event.getLocation().ordinal();
+        departments[row] = (byte) contact.getDepartment().ordinal();
+        durations[row] = (short) event.getDuration();
+        longest = Math.max(longest, event.getDuration());
+        emails[row] = intern(contact.getEmail());
+        indexRow(row);
+        if (dateOrder != null) {
+            if (numRecent == recent.length) {
+                recent = Arrays.copyOf(recent, numRecent * 2);
+            }
+            recent[numRecent++] = entry(row);
+            recentSorted = false;
+        }
+        stats.add(event);
+        end++;
+        numEvents++;
+        modCount++;
+        version++;
+    }
+
+    /**
+     * Removes the event booked on the date, timeslot and location of the given
+     * event. The row is marked removed, and the columns are compacted once half
+     * of their rows are removed.
+     *
+     * @param event the event to be removed
+     * @return true if the event was removed, false if it was not booked
+     */
+    @Override
+    public boolean remove(Event event) {
+        if (!unlink(event)) {
+            return false;
+        }
+        if (numEvents < end / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Removes a batch of events, compacting the columns at most once.
+     *
+     * @param batch the events to be removed
+     * @return the number of events removed
+     */
+    public int removeAll(Event[] batch) {
+        int removed = 0;
+        for (Event event : batch) {
+            if (unlink(event)) {
+                removed++;
+            }
+        }
+        if (numEvents < end / 2) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes an event from the row index, the occupancy map and the
+     * statistics, and marks its row removed.
+     *
+     * @param event the event to be removed
+     * @return true if the event was removed, false if it was not found
+     */
+    private boolean unlink(Event event) {
+        int key = OccupancyMap.key(event);
+        if (!occupancy.remove(key)) {
+            return false;
+        }
+        int row = find(key);
+        stats.remove(event(row));
+        unindex(key);
+        timeslots[row] = REMOVED;
+        numEvents--;
+        modCount++;
+        version++;
+        return true;
+    }
+
+    /**
+     * Checks if the date, timeslot and location of the given event are booked.
+     *
+     * @param event the event to check for
+     * @return true if the booking exists, false otherwise
+     */
+    @Override
+    public boolean contains(Event event) {
+        return occupancy.contains(OccupancyMap.key(event));
+    }
+
+    /**
+     * Checks if the time of the given event, from its timeslot for its
+     * duration, overlaps an event booked at the same location.
+     *
+     * @param event the event to check for
+     * @return true if the event overlaps a booking, false otherwise
+     */
+    @Override
+    public boolean overlaps(Event event) {
+        long start = IntervalIndex.start(event);
+        return contains(event) || overlapping(event.getLocation(), start, start + event.getDuration(), null);
+    }
+
+    /**
+     * Lists the events at a location that overlap a span of time.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @return the overlapping events in start order
+     */
+    @Override
+    public List<Event> overlapping(Location location, long start, long end) {
+        List<Event> found = new ArrayList<>();
+        overlapping(location, start, end, found);
+        return found;
+    }
+
+    /**
+     * Finds the rows at a location that overlap a span of time. Only the
+     * timeslots starting less than the longest stored duration before the span
+     * are looked up in the occupancy map, so no column is scanned.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @param found    the list the events are added to in start order, or null
+     *                 to stop at the first overlapping row
+     * @return true if a row overlaps the span, false otherwise
+     */
+    private boolean overlapping(Location location, long start, long end, List<Event> found) {
+        boolean overlaps = false;
+        long last = Math.floorDiv(end - 1, Constants.MINUTES_PER_DAY);
+        for (long day = Math.floorDiv(start - longest, Constants.MINUTES_PER_DAY); day <= last; day++) {
+            for (Timeslot timeslot : TIMESLOTS) {
+                long rowStart = day * Constants.MINUTES_PER_DAY + timeslot.getStartMinutes();
+                if (rowStart >= end) {
+                    break;
+                }
+                int key = OccupancyMap.key((int) day, timeslot, location);
+                if (!occupancy.contains(key)) {
+                    continue;
+                }
+                int row = find(key);
+                if (rowStart + durations[row] > start) {
+                    if (found == null) {
+                        return true;
+                    }
+                    found.add(event(row));
+                    overlaps = true;
+                }
+            }
+        }
+        return overlaps;
+    }
+
+    /**
+     * Creates the event stored in a row. The contact is shared with the last
+     * event read with the same email and department.
+     *
+     * @param row the row
+     * @return the event
+     */
+    private Event event(int row) {
+        int email = emails[row];
+        Department department = DEPARTMENTS[departments[row]];
+        Contact contact = contacts[email];
+        if (contact == null || contact.getDepartment() != department) {
+            contact = new Contact(department, strings[email]);
+            contacts[email] = contact;
+        }
+        return new Event(Date.ofEpochDay(days[row]), TIMESLOTS[timeslots[row]], LOCATIONS[locations[row]], contact,
+                durations[row]);
+    }
+
+    /**
+     * Lists the events of the given rows in order.
+     *
+     * @param rows  the rows
+     * @param count the number of rows to list
+     * @return the events of the rows
+     */
+    private Iterable<Event> events(int[] rows, int count) {
+        return () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Event next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                return event(rows[next++]);
+            }
+        };
+    }
+
+    /**
+     * Builds the date order entry of a row: its packed booking key in the high
+     * half, so entries sort by date, timeslot and location, and the row in the
+     * low half.
+     *
+     * @param row the row
+     * @return the entry of the row
+     */
+    private long entry(int row) {
+        return (long) key(row) << Integer.SIZE | row;
+    }
+
+    /**
+     * Brings the date order up to date. The first call sorts the entries of
+     * every row with the fork-join parallel sort. Later calls only sort the
+     * rows added since, and merge them in, dropping removed rows, once they
+     * are more than a small share of the ordered rows.
+     */
+    private void orderByDate() {
+        if (dateOrder == null) {
+            dateOrder = new long[numEvents];
+            ordered = 0;
+            for (int row = 0; row < end; row++) {
+                if (timeslots[row] != REMOVED) {
+                    dateOrder[ordered++] = entry(row);
+                }
+            }
+            Arrays.parallelSort(dateOrder, 0, ordered);
+            numRecent = 0;
+            return;
+        }
+        if (!recentSorted) {
+            Arrays.sort(recent, 0, numRecent);
+            recentSorted = true;
+        }
+        if (numRecent > Math.max(MIN_RECENT, ordered / RECENT_SHARE)) {
+            long[] merged = new long[numEvents];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < ordered || j < numRecent) {
+                long next = j == numRecent || (i < ordered && dateOrder[i] < recent[j]) ? dateOrder[i++] : recent[j++];
+                if (timeslots[(int) next] != REMOVED) {
+                    merged[count++] = next;
+                }
+            }
+            dateOrder = merged;
+            ordered = count;
+            numRecent = 0;
+        }
+    }
+
+    /**
+     * Finds the first entry at or after a bound in a sorted run of entries.
+     *
+     * @param entries the sorted entries
+     * @param count   the number of entries in use
+     * @param bound   the bound
+     * @return the position of the first entry not below the bound
+     */
+    private static int lowerBound(long[] entries, int count, long bound) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle] < bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Lists the live rows whose date order entries lie from one bound up to
+     * another, in date order. The bounds are found by binary search in the
+     * date order and in the rows added since it was merged, and the two ranges
+     * are merged.
+     *
+     * @param low  the lowest entry of the range
+     * @param high the entry after the range
+     * @return the rows in the range by date
+     */
+    private int[] rowsByDate(long low, long high) {
+        orderByDate();
+        int i = lowerBound(dateOrder, ordered, low);
+        int iEnd = Math.max(i, lowerBound(dateOrder, ordered, high));
+        int j = lowerBound(recent, numRecent, low);
+        int jEnd = Math.max(j, lowerBound(recent, numRecent, high));
+        int[] rows = new int[iEnd - i + jEnd - j];
+        int count = 0;
+        while (i < iEnd || j < jEnd) {
+            long next = j == jEnd || (i < iEnd && dateOrder[i] < recent[j]) ? dateOrder[i++] : recent[j++];
+            if (timeslots[(int) next] != REMOVED) {
+                rows[count++] = (int) next;
+            }
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Lists the live rows by a rank of one of their columns, then by date. The
+     * rows of the date order are bucketed by rank, which keeps them in date
+     * order within each rank.
+     *
+     * @param ranks  the rank of each value of the column
+     * @param column the ordinal column
+     * @return the rows in order
+     */
+    private int[] rowsByRank(int[] ranks, byte[] column) {
+        int[] byDate = rowsByDate(Long.MIN_VALUE, Long.MAX_VALUE);
+        int[] starts = new int[ranks.length + 1];
+        for (int row : byDate) {
+            starts[ranks[column[row]] + 1]++;
+        }
+        for (int rank = 0; rank < ranks.length; rank++) {
+            starts[rank + 1] += starts[rank];
+        }
+        int[] rows = new int[byDate.length];
+        for (int row : byDate) {
+            rows[starts[ranks[column[row]]]++] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * Prints all events in insertion order. From the parallel threshold of the
+     * report writer on, the rows are rendered in parallel; if some rows are
+     * removed, the live rows are listed first, since printing must not move
+     * rows under a live iterator.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void print(ReportWriter report) {
+        if (report.isParallel(numEvents)) {
+            if (end == numEvents) {
+                report.writeReport(ReportWriter.HEADER, numEvents, this::event);
+                return;
+            }
+            int[] rows = new int[numEvents];
+            int count = 0;
+            for (int row = 0; row < end; row++) {
+                if (timeslots[row] != REMOVED) {
+                    rows[count++] = row;
+                }
+            }
+            writeRows(ReportWriter.HEADER, rows, report);
+        } else {
+            report.writeReport(ReportWriter.HEADER, this);
+        }
+    }
+
+    /**
+     * Prints the events of the given rows in order.
+     *
+     * @param header the title line of the report
+     * @param rows   the rows in report order
+     * @param report the report writer to render into
+     */
+    private void writeRows(String header, int[] rows, ReportWriter report) {
+        report.writeReport(header, rows.length, i -> event(rows[i]));
+    }
+
+    /**
+     * Prints all events by date, from the date order of the rows.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDate(ReportWriter report) {
+        writeRows(ReportWriter.HEADER_BY_DATE, rowsByDate(Long.MIN_VALUE, Long.MAX_VALUE), report);
+    }
+
+    /**
+     * Lists the rows from one date through another in date order.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the rows in the range by date
+     */
+    private int[] rowsByDate(Date from, Date to) {
+        int fromKey = OccupancyMap.key(from.toEpochDay(), EventCalendar.FIRST_TIMESLOT, EventCalendar.FIRST_LOCATION);
+        int toKey = OccupancyMap.key(to.toEpochDay() + 1, EventCalendar.FIRST_TIMESLOT, EventCalendar.FIRST_LOCATION);
+        return rowsByDate((long) fromKey << Integer.SIZE, (long) toKey << Integer.SIZE);
+    }
+
+    /**
+     * Prints the events from one date through another by date. The range is
+     * found by binary search in the date order, so it costs O(log n + k) for
+     * k events in the range.
+     *
+     * @param from   the first date of the range
+     * @param to     the last date of the range
+     * @param filter the test an event must pass to be printed
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDateRange(Date from, Date to, Predicate<Event> filter, ReportWriter report) {
+        int[] rows = rowsByDate(from, to);
+        report.writeReport(ReportWriter.rangeHeader(from, to), ReportWriter.EMPTY_RANGE, events(rows, rows.length),
+                filter);
+    }
+
+    /**
+     * Copies the events from one date through another by date, creating only
+     * the events in the range.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the events in the range by date
+     */
+    @Override
+    public Event[] toArray(Date from, Date to) {
+        int[] rows = rowsByDate(from, to);
+        Event[] events = new Event[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            events[i] = event(rows[i]);
+        }
+        return events;
+    }
+
+    /**
+     * Finds the earliest free bookings from one day through another by
+     * scanning the occupancy bitset a word at a time.
+     *
+     * @param fromDay the epoch day of the first date to search
+     * @param toDay   the epoch day of the last date to search
+     * @param campus  the campus to search, or null for every campus
+     * @param found   receives the packed keys of the free bookings in order
+     * @return the number of free bookings found
+     */
+    @Override
+    public int findFree(int fromDay, int toDay, Campus campus, int[] found) {
+        return occupancy.findFree(
+                OccupancyMap.key(fromDay, EventCalendar.FIRST_TIMESLOT, EventCalendar.FIRST_LOCATION),
+                OccupancyMap.key(toDay + 1, EventCalendar.FIRST_TIMESLOT, EventCalendar.FIRST_LOCATION),
+                campus == null ? EventCalendar.ALL_LOCATIONS : EventCalendar.CAMPUS_LOCATIONS[campus.ordinal()],
+                found);
+    }
+
+    /**
+     * Prints all events by campus and building, then by date, bucketing the
+     * date order of the rows by location rank.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByCampus(ReportWriter report) {
+        writeRows(ReportWriter.HEADER_BY_CAMPUS, rowsByRank(EventCalendar.CAMPUS_RANK, locations), report);
+    }
+
+    /**
+     * Prints all events by department, then by date, bucketing the date order
+     * of the rows by department rank.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDepartment(ReportWriter report) {
+        writeRows(ReportWriter.HEADER_BY_DEPARTMENT, rowsByRank(EventCalendar.DEPARTMENT_RANK, departments), report);
+    }
+
+    /**
+     * Gets the number of events in the calendar.
+     *
+     * @return the number of events
+     */
+    @Override
+    public int size() {
+        return numEvents;
+    }
+
+    /**
+     * Gets the modification version of the calendar, which changes on every
+     * add and remove.
+     *
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the booking statistics, which are kept up to date on every add and
+     * remove.
+     *
+     * @return the statistics of the events
+     */
+    @Override
+    public BookingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns an iterator over the events in insertion order, creating each
+     * event as it is reached. The iterator is fail-fast: it throws
+     * ConcurrentModificationException once the calendar is changed.
+     *
+     * @return an iterator over the events
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return new RowIterator();
+    }
+
+    /**
+     * Returns a spliterator over the events in insertion order, which splits
+     * by halving the range of rows. Like the iterator, it is fail-fast.
+     *
+     * @return a spliterator over the events
+     */
+    @Override
+    public Spliterator<Event> spliterator() {
+        return new RowSpliterator(0, end, modCount);
+    }
+
+    /**
+     * Finds the first live row at or after the given row.
+     *
+     * @param row the row to start at
+     * @return the next live row, or the end of the rows in use
+     */
+    private int skipRemoved(int row) {
+        while (row < end && timeslots[row] == REMOVED) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Iterates over the rows in insertion order, skipping removed rows.
+     */
+    private class RowIterator implements Iterator<Event> {
+        private final int expectedModCount = modCount;
+        private int cursor = skipRemoved(0);
+
+        /**
+         * Checks if there is another event.
+         *
+         * @return true if there is another event
+         */
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        /**
+         * Gets the next event.
+         *
+         * @return the next event
+         */
+        @Override
+        public Event next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            Event event = event(cursor);
+            cursor = skipRemoved(cursor + 1);
+            return event;
+        }
+    }
+
+    /**
+     * Splits and traverses a range of rows, skipping removed rows.
+     */
+    private class RowSpliterator implements Spliterator<Event> {
+        private final int expectedModCount;
+        private int position;
+        private final int fence;
+
+        /**
+         * Initializes a spliterator over a range of rows.
+         *
+         * @param position         the first row
+         * @param fence            the row after the last one
+         * @param expectedModCount the change count the calendar must keep
+         */
+        RowSpliterator(int position, int fence, int expectedModCount) {
+            this.position = position;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Passes the next event to the action, if there is one.
+         *
+         * @param action the action to perform
+         * @return false if there were no events left
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Event> action) {
+            while (position < fence) {
+                int row = position++;
+                if (timeslots[row] != REMOVED) {
+                    action.accept(event(row));
+                    checkForComodification();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Splits off the first half of the remaining range.
+         *
+         * @return a spliterator over the first half, or null if the range is too
+         *         small to split
+         */
+        @Override
+        public Spliterator<Event> trySplit() {
+            int middle = (position + fence) >>> 1;
+            if (middle <= position) {
+                return null;
+            }
+            RowSpliterator prefix = new RowSpliterator(position, middle, expectedModCount);
+            position = middle;
+            return prefix;
+        }
+
+        /**
+         * Estimates the number of remaining events; removed rows left in the
+         * range make it an upper bound.
+         *
+         * @return the number of remaining rows
+         */
+        @Override
+        public long estimateSize() {
+            return fence - position;
+        }
+
+        /**
+         * Reports that the events are ordered, distinct and never null.
+         *
+         * @return the characteristics of this spliterator
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+
+        /**
+         * Fails if the calendar was changed during the traversal.
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
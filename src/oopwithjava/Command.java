@@ -0,0 +1,38 @@
+package oopwithjava;
+
+/**
+ * Represents the commands of the Event Organizer. Commands are matched case
+ * sensitively, so "a" stays an invalid command.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public enum Command {
+    Q,
+    A,
+    AW,
+    R,
+    P,
+    PE,
+    PC,
+    PD,
+    PR,
+    FIND,
+    STATS,
+    METRICS,
+    BATCH,
+    SAVE,
+    LOAD;
+
+    private static final EnumLookup<Command> LOOKUP = new EnumLookup<>(Command.class, false);
+
+    /**
+     * Moves a tokenizer to the next token and decodes it as a command.
+     *
+     * @param tokenizer the tokenizer of the command line
+     * @return the command, or null if the token is not a command
+     */
+    public static Command next(LineTokenizer tokenizer) {
+        return tokenizer.nextEnum(LOOKUP);
+    }
+}
@@ -0,0 +1,105 @@
+package oopwithjava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+/**
+ * Reads a command file line by line through a large-buffer FileChannel.
+ * Lines are cut directly out of the byte buffer, so the only allocation per
+ * command is the line itself.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class CommandFileReader {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte NEW_LINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final Path path;
+
+    /**
+     * Initializes a reader for the given command file.
+     *
+     * @param path the path of the command file
+     */
+    public CommandFileReader(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Passes every line of the command file to the consumer, in order.
+     * Reading stops early when the consumer returns false.
+     *
+     * @param consumer the consumer of the lines, returning whether to continue
+     * @return the number of lines passed to the consumer
+     * @throws IOException if the file cannot be read
+     */
+    public long forEachLine(Predicate<String> consumer) throws IOException {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                if (!buffer.hasRemaining()) {
+                    buffer = grow(buffer);
+                }
+                endOfFile = channel.read(buffer) < 0;
+                byte[] bytes = buffer.array();
+                int limit = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (bytes[i] == NEW_LINE) {
+                        lines++;
+                        if (!consumer.test(decode(bytes, lineStart, i))) {
+                            return lines;
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                if (endOfFile && lineStart < limit) {
+                    lines++;
+                    consumer.test(decode(bytes, lineStart, limit));
+                    return lines;
+                }
+                buffer.position(lineStart);
+                buffer.limit(limit);
+                buffer.compact();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Decodes one line of the buffer, dropping a trailing carriage return.
+     *
+     * @param bytes the buffer contents
+     * @param start the index of the first byte of the line
+     * @param end   the index just past the last byte of the line
+     * @return the decoded line
+     */
+    private static String decode(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == CARRIAGE_RETURN) {
+            end--;
+        }
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Doubles the buffer when a single line does not fit in it.
+     *
+     * @param buffer the full buffer
+     * @return a larger buffer holding the same contents
+     */
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
@@ -0,0 +1,287 @@
+package oopwithjava;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts the commands of the Event Organizer with a latency histogram per
+ * command, and counts the outcomes of the commands that change the calendar
+ * and the hits and misses of the report cache.
+ * Everything is recorded lock-free, so timing a command costs two clock reads
+ * and a few uncontended atomic updates. The metrics are printed by the METRICS
+ * command and can be registered as a JMX MBean.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class CommandMetrics implements CommandMetricsMBean {
+    public static final String OBJECT_NAME = "oopwithjava:type=CommandMetrics";
+    public static final String HEADER = "* Command metrics *";
+    public static final String FOOTER = "* end of command metrics *";
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double P50 = 0.5;
+    private static final double P99 = 0.99;
+    private static final double P999 = 0.999;
+
+    private final LatencyHistogram[] latencies; // by command ordinal
+    private final LongAdder[] outcomes; // by outcome ordinal
+    private final LongAdder cacheHits;
+    private final LongAdder cacheMisses;
+
+    /**
+     * Initializes empty metrics.
+     */
+    public CommandMetrics() {
+        this.latencies = new LatencyHistogram[Command.values().length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        this.outcomes = new LongAdder[Outcome.values().length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+        this.cacheHits = new LongAdder();
+        this.cacheMisses = new LongAdder();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     *
+     * @return true if the metrics were registered, false if the name is taken
+     *         or JMX is unavailable
+     */
+    public boolean register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the latency of a processed command.
+     *
+     * @param command the command
+     * @param nanos   the time it took in nanoseconds
+     */
+    public void record(Command command, long nanos) {
+        latencies[command.ordinal()].record(nanos);
+    }
+
+    /**
+     * Counts an outcome.
+     *
+     * @param outcome the outcome
+     */
+    public void count(Outcome outcome) {
+        outcomes[outcome.ordinal()].increment();
+    }
+
+    /**
+     * Counts a lookup in the report cache.
+     *
+     * @param hit true if the report was served from the cache
+     */
+    public void countCacheLookup(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    /**
+     * Gets the latency histogram of a command.
+     *
+     * @param command the command
+     * @return its histogram
+     */
+    public LatencyHistogram getLatencies(Command command) {
+        return latencies[command.ordinal()];
+    }
+
+    /**
+     * Gets the number of times an outcome occurred.
+     *
+     * @param outcome the outcome
+     * @return the number of times
+     */
+    public long getCount(Outcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of commands processed, including invalid ones.
+     *
+     * @return the number of commands
+     */
+    @Override
+    public long getCommands() {
+        long commands = getCount(Outcome.INVALID_COMMAND);
+        for (LatencyHistogram histogram : latencies) {
+            commands += histogram.getCount();
+        }
+        return commands;
+    }
+
+    /**
+     * Gets the text of the METRICS report.
+     *
+     * @return the report
+     */
+    @Override
+    public String getReport() {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        writeReport(new ReportWriter(new PrintStream(text)));
+        return text.toString();
+    }
+
+    /**
+     * Gets the histogram of a command by name.
+     *
+     * @param command the name of the command
+     * @return the histogram, or null if there is no such command
+     */
+    private LatencyHistogram histogram(String command) {
+        for (Command candidate : Command.values()) {
+            if (candidate.name().equals(command)) {
+                return latencies[candidate.ordinal()];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the number of times a command was processed.
+     *
+     * @param command the name of the command
+     * @return the number of times, or -1 if there is no such command
+     */
+    @Override
+    public long count(String command) {
+        LatencyHistogram histogram = histogram(command);
+        return histogram == null ? Constants.NOT_FOUND : histogram.getCount();
+    }
+
+    /**
+     * Gets a latency percentile of a command.
+     *
+     * @param command  the name of the command
+     * @param quantile the fraction of latencies at or below the result
+     * @return the percentile in nanoseconds, or -1 if there is no such command
+     */
+    @Override
+    public long percentileNanos(String command, double quantile) {
+        LatencyHistogram histogram = histogram(command);
+        return histogram == null ? Constants.NOT_FOUND : histogram.getPercentile(quantile);
+    }
+
+    /**
+     * Gets the largest latency of a command.
+     *
+     * @param command the name of the command
+     * @return the maximum in nanoseconds, or -1 if there is no such command
+     */
+    @Override
+    public long maxNanos(String command) {
+        LatencyHistogram histogram = histogram(command);
+        return histogram == null ? Constants.NOT_FOUND : histogram.getMax();
+    }
+
+    /**
+     * Gets the number of times an outcome occurred.
+     *
+     * @param outcome the name of the outcome
+     * @return the number of times, or -1 if there is no such outcome
+     */
+    @Override
+    public long outcomes(String outcome) {
+        for (Outcome candidate : Outcome.values()) {
+            if (candidate.name().equals(outcome)) {
+                return getCount(candidate);
+            }
+        }
+        return Constants.NOT_FOUND;
+    }
+
+    /**
+     * Gets the number of reports served from the report cache.
+     *
+     * @return the number of cache hits
+     */
+    @Override
+    public long getReportCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Gets the number of reports rendered because the report cache had no
+     * current copy.
+     *
+     * @return the number of cache misses
+     */
+    @Override
+    public long getReportCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Clears every counter and histogram.
+     */
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+        for (LongAdder outcome : outcomes) {
+            outcome.reset();
+        }
+        cacheHits.reset();
+        cacheMisses.reset();
+    }
+
+    /**
+     * Formats nanoseconds as microseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in microseconds with one decimal
+     */
+    private static String micros(long nanos) {
+        return String.format("%.1f us", nanos / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Renders the count and latencies of every command used so far, and the
+     * count of every outcome that occurred, as a report and flushes it.
+     *
+     * @param report the report writer to render into
+     */
+    public void writeReport(ReportWriter report) {
+        report.appendLine(HEADER);
+        for (Command command : Command.values()) {
+            LatencyHistogram histogram = latencies[command.ordinal()];
+            if (histogram.getCount() > 0) {
+                report.appendLine(command.name() + ": " + histogram.getCount() + " commands, mean "
+                        + micros(histogram.getMean()) + ", p50 " + micros(histogram.getPercentile(P50)) + ", p99 "
+                        + micros(histogram.getPercentile(P99)) + ", p999 " + micros(histogram.getPercentile(P999))
+                        + ", max " + micros(histogram.getMax()));
+            }
+        }
+        for (Outcome outcome : Outcome.values()) {
+            long count = getCount(outcome);
+            if (count > 0) {
+                report.appendLine(outcome.name() + ": " + count);
+            }
+        }
+        long hits = getReportCacheHits();
+        long lookups = hits + getReportCacheMisses();
+        if (lookups > 0) {
+            report.appendLine(String.format("REPORT_CACHE: %d hits, %d misses, %.1f%% hit rate", hits,
+                    lookups - hits, hits * 100.0 / lookups));
+        }
+        report.appendLine(FOOTER);
+        report.flush();
+    }
+}
@@ -0,0 +1,78 @@
+package oopwithjava;
+
+/**
+ * The management interface of the command metrics, as seen through JMX.
+ * Commands and outcomes are named as in the Command and Outcome enums.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public interface CommandMetricsMBean {
+
+    /**
+     * Gets the number of commands processed, including invalid ones.
+     *
+     * @return the number of commands
+     */
+    long getCommands();
+
+    /**
+     * Gets the text of the METRICS report.
+     *
+     * @return the report
+     */
+    String getReport();
+
+    /**
+     * Gets the number of times a command was processed.
+     *
+     * @param command the name of the command
+     * @return the number of times, or -1 if there is no such command
+     */
+    long count(String command);
+
+    /**
+     * Gets a latency percentile of a command.
+     *
+     * @param command  the name of the command
+     * @param quantile the fraction of latencies at or below the result
+     * @return the percentile in nanoseconds, or -1 if there is no such command
+     */
+    long percentileNanos(String command, double quantile);
+
+    /**
+     * Gets the largest latency of a command.
+     *
+     * @param command the name of the command
+     * @return the maximum in nanoseconds, or -1 if there is no such command
+     */
+    long maxNanos(String command);
+
+    /**
+     * Gets the number of times an outcome occurred.
+     *
+     * @param outcome the name of the outcome
+     * @return the number of times, or -1 if there is no such outcome
+     */
+    long outcomes(String outcome);
+
+    /**
+     * Gets the number of reports served from the report cache.
+     *
+     * @return the number of cache hits
+     */
+    long getReportCacheHits();
+
+    /**
+     * Gets the number of reports rendered because the report cache had no
+     * current copy.
+     *
+     * @return the number of cache misses
+     */
+    long getReportCacheMisses();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,363 @@
+package oopwithjava;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Represents an Event Calendar that can be shared by several threads.
+ * Bookings are guarded by one lock per location, so bookings for different
+ * rooms never contend, and the overlap check and insert of an event happen
+ * atomically: each location keeps its events in an interval index under its
+ * lock. The ordered views are concurrent skip lists, so the print commands
+ * read them without blocking writers.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class ConcurrentEventCalendar implements BookingCalendar {
+    // occupancy search pattern of each location by ordinal
+    private static final long[][] LOCATION_PATTERNS = new long[Location.values().length][];
+
+    static {
+        for (Location location : Location.values()) {
+            LOCATION_PATTERNS[location.ordinal()] = OccupancyMap.pattern(allowed -> allowed == location);
+        }
+    }
+
+    private final ReentrantLock[] locks; // one per location
+    private final OccupancyMap[] occupancy; // one per location, guarded by its lock
+    private final BookingStats[] stats; // one per location, guarded by its lock
+    private final IntervalIndex[] intervals; // one per location, guarded by its lock
+    private final ConcurrentHashMap<Event, Long> sequences; // booking -> insertion sequence
+    private final ConcurrentSkipListMap<Long, Event> byInsertion;
+    private final ConcurrentSkipListSet<Event> byDate;
+    private final ConcurrentSkipListSet<Event> byCampus;
+    private final ConcurrentSkipListSet<Event> byDepartment;
+    private final AtomicLong nextSequence;
+    private final AtomicLong version; // adds and removes, for caching outputs of the calendar
+
+    /**
+     * Initializes an empty concurrent Event Calendar.
+     */
+    public ConcurrentEventCalendar() {
+        int locations = Location.values().length;
+        this.locks = new ReentrantLock[locations];
+        this.occupancy = new OccupancyMap[locations];
+        this.stats = new BookingStats[locations];
+        this.intervals = new IntervalIndex[locations];
+        for (int i = 0; i < locations; i++) {
+            locks[i] = new ReentrantLock();
+            occupancy[i] = new OccupancyMap();
+            stats[i] = new BookingStats();
+            intervals[i] = new IntervalIndex();
+        }
+        this.sequences = new ConcurrentHashMap<>();
+        this.byInsertion = new ConcurrentSkipListMap<>();
+        this.byDate = new ConcurrentSkipListSet<>(EventCalendar.BY_DATE);
+        this.byCampus = new ConcurrentSkipListSet<>(EventCalendar.BY_CAMPUS);
+        this.byDepartment = new ConcurrentSkipListSet<>(EventCalendar.BY_DEPARTMENT);
+        this.nextSequence = new AtomicLong();
+        this.version = new AtomicLong();
+    }
+
+    /**
+     * Adds an event, unless its time overlaps an event booked at its location.
+     * Only the lock of the event's location is held, so two clients can never
+     * both book overlapping times.
+     *
+     * @param event the event to be added
+     * @return true if the event was added, false if it conflicts with a booking
+     */
+    @Override
+    public boolean add(Event event) {
+        int location = event.getLocation().ordinal();
+        long start = IntervalIndex.start(event);
+        locks[location].lock();
+        try {
+            if (intervals[location].overlaps(event.getLocation(), start, start + event.getDuration())
+                    || !occupancy[location].add(OccupancyMap.key(event))) {
+                return false;
+            }
+            intervals[location].add(event);
+            long sequence = nextSequence.getAndIncrement();
+            sequences.put(event, sequence);
+            byInsertion.put(sequence, event);
+            byDate.add(event);
+            byCampus.add(event);
+            byDepartment.add(event);
+            stats[location].add(event);
+            version.incrementAndGet();
+            return true;
+        } finally {
+            locks[location].unlock();
+        }
+    }
+
+    /**
+     * Removes the event booked on the date, timeslot and location of the given
+     * event. Only the lock of the event's location is held.
+     *
+     * @param event the event to be removed
+     * @return true if the event was removed, false if it was not booked
+     */
+    @Override
+    public boolean remove(Event event) {
+        int location = event.getLocation().ordinal();
+        locks[location].lock();
+        try {
+            if (!occupancy[location].remove(OccupancyMap.key(event))) {
+                return false;
+            }
+            Event removed = byInsertion.remove(sequences.remove(event));
+            intervals[location].remove(removed);
+            byDate.remove(removed);
+            byCampus.remove(removed);
+            byDepartment.remove(removed);
+            stats[location].remove(removed);
+            version.incrementAndGet();
+            return true;
+        } finally {
+            locks[location].unlock();
+        }
+    }
+
+    /**
+     * Checks if the date, timeslot and location of the given event are booked.
+     *
+     * @param event the event to check for
+     * @return true if the booking exists, false otherwise
+     */
+    @Override
+    public boolean contains(Event event) {
+        int location = event.getLocation().ordinal();
+        locks[location].lock();
+        try {
+            return occupancy[location].contains(OccupancyMap.key(event));
+        } finally {
+            locks[location].unlock();
+        }
+    }
+
+    /**
+     * Checks if the time of the given event overlaps an event booked at the
+     * same location, in the interval index of that location under its lock.
+     *
+     * @param event the event to check for
+     * @return true if the event overlaps a booking, false otherwise
+     */
+    @Override
+    public boolean overlaps(Event event) {
+        int location = event.getLocation().ordinal();
+        long start = IntervalIndex.start(event);
+        locks[location].lock();
+        try {
+            return intervals[location].overlaps(event.getLocation(), start, start + event.getDuration());
+        } finally {
+            locks[location].unlock();
+        }
+    }
+
+    /**
+     * Lists the events at a location that overlap a span of time, from the
+     * interval index of the location under its lock.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @return the overlapping events in start order
+     */
+    @Override
+    public List<Event> overlapping(Location location, long start, long end) {
+        locks[location.ordinal()].lock();
+        try {
+            return intervals[location.ordinal()].overlapping(location, start, end);
+        } finally {
+            locks[location.ordinal()].unlock();
+        }
+    }
+
+    /**
+     * Finds the earliest free bookings from one day through another. Each
+     * location is searched under its own lock and the results are merged.
+     *
+     * @param fromDay the epoch day of the first date to search
+     * @param toDay   the epoch day of the last date to search
+     * @param campus  the campus to search, or null for every campus
+     * @param found   receives the packed keys of the free bookings in order
+     * @return the number of free bookings found
+     */
+    @Override
+    public int findFree(int fromDay, int toDay, Campus campus, int[] found) {
+        int fromKey = OccupancyMap.key(fromDay, Timeslot.values()[0], Location.values()[0]);
+        int toKey = OccupancyMap.key(toDay + 1, Timeslot.values()[0], Location.values()[0]);
+        int[] candidates = new int[found.length * locks.length];
+        int count = 0;
+        int[] free = new int[found.length];
+        for (Location location : Location.values()) {
+            if (campus != null && location.getCampus() != campus) {
+                continue;
+            }
+            int i = location.ordinal();
+            int located;
+            locks[i].lock();
+            try {
+                located = occupancy[i].findFree(fromKey, toKey, LOCATION_PATTERNS[i], free);
+            } finally {
+                locks[i].unlock();
+            }
+            System.arraycopy(free, 0, candidates, count, located);
+            count += located;
+        }
+        Arrays.sort(candidates, 0, count);
+        count = Math.min(count, found.length);
+        System.arraycopy(candidates, 0, found, 0, count);
+        return count;
+    }
+
+    /**
+     * Gets the number of events in the calendar.
+     *
+     * @return the number of events
+     */
+    @Override
+    public int size() {
+        return sequences.size();
+    }
+
+    /**
+     * Gets the modification version of the calendar, which changes on every
+     * add and remove.
+     *
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Adds up the booking statistics that every location keeps up to date
+     * under its lock, so bookings for different rooms never contend for them
+     * and the statistics take constant time in the number of events.
+     *
+     * @return the statistics of the events
+     */
+    @Override
+    public BookingStats getStats() {
+        BookingStats total = new BookingStats();
+        for (int i = 0; i < locks.length; i++) {
+            locks[i].lock();
+            try {
+                total.addAll(stats[i]);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns an iterator over the events in insertion order. The iterator is
+     * weakly consistent: it never fails, and reflects some of the changes made
+     * while it runs.
+     *
+     * @return an iterator over the events
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return byInsertion.values().iterator();
+    }
+
+    /**
+     * Returns a weakly consistent spliterator over the events in insertion
+     * order.
+     *
+     * @return a spliterator over the events
+     */
+    @Override
+    public Spliterator<Event> spliterator() {
+        return byInsertion.values().spliterator();
+    }
+
+    /**
+     * Prints all events in insertion order, without blocking writers.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void print(ReportWriter report) {
+        report.writeReport(ReportWriter.HEADER, byInsertion.values());
+    }
+
+    /**
+     * Prints all events by date, without blocking writers.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDate(ReportWriter report) {
+        report.writeReport(ReportWriter.HEADER_BY_DATE, byDate);
+    }
+
+    /**
+     * Prints the events from one date through another by date, straight from
+     * the ordered date view.
+     *
+     * @param from   the first date of the range
+     * @param to     the last date of the range
+     * @param filter the test an event must pass to be printed
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDateRange(Date from, Date to, Predicate<Event> filter, ReportWriter report) {
+        Iterable<Event> range = from.compareTo(to) > 0 ? Collections.emptySet()
+                : byDate.subSet(EventCalendar.firstBookingOn(from), true, EventCalendar.lastBookingOn(to), true);
+        report.writeReport(ReportWriter.rangeHeader(from, to), ReportWriter.EMPTY_RANGE, range, filter);
+    }
+
+    /**
+     * Copies the events from one date through another by date, straight from
+     * the ordered date view.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the events in the range by date
+     */
+    @Override
+    public Event[] toArray(Date from, Date to) {
+        if (from.compareTo(to) > 0) {
+            return new Event[0];
+        }
+        return byDate.subSet(EventCalendar.firstBookingOn(from), true, EventCalendar.lastBookingOn(to), true)
+                .toArray(new Event[0]);
+    }
+
+    /**
+     * Prints all events by location, without blocking writers.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByCampus(ReportWriter report) {
+        report.writeReport(ReportWriter.HEADER_BY_CAMPUS, byCampus);
+    }
+
+    /**
+     * Prints all events by department, without blocking writers.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDepartment(ReportWriter report) {
+        report.writeReport(ReportWriter.HEADER_BY_DEPARTMENT, byDepartment);
+    }
+}
@@ -23,4 +23,18 @@ public class Constants {
     public static final int AM_OPEN = 10;
     public static final int AM_CLOSE = 12;
     public static final int MINUTES_PER_HOUR = 60;
+    public static final int MINUTES_PER_DAY = 1440;
+    public static final int HOURS_PER_HALF_DAY = 12;
+    public static final int MIN_DURATION = 30;
+    public static final int MAX_DURATION = 120;
+    public static final int DAYS_PER_ERA = 146097;
+    public static final int EPOCH_DAY_OFFSET = 719468;
+    public static final long NANOS_PER_MILLI = 1_000_000L;
+    public static final long NANOS_PER_SECOND = 1_000_000_000L;
+    public static final int FREE_BOOKINGS_LISTED = 10;
+    public static final int PARALLEL_THRESHOLD = 100_000;
+    public static final int REPORT_CACHE_ENTRIES = 32;
+    public static final int REPORT_CACHE_CHARS = 1 << 24;
+    public static final int DAYS_PER_WEEK = 7;
+    public static final int MAX_SERIES_WEEKS = 26;
 }
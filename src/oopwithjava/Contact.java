@@ -9,8 +9,10 @@ package oopwithjava;
  * @author Altay Ozkan
  */
 public class Contact {
-    private Department department;
-    private String email;
+    private static final String EMAIL_DOMAIN = "@rutgers.edu";
+
+    private final Department department;
+    private final String email;
 
     /**
      * Initializes a new instance of the Contact class.
@@ -30,12 +32,25 @@ public class Contact {
      * @return true if the contact information is valid, false otherwise
      */
     public boolean isValid() {
-        if (department == null) {
-            return false;
-        }
-        String emailLowerCase = email.toLowerCase();
-        String departmentLowerCase = department.name().toLowerCase();
-        return emailLowerCase.equals(departmentLowerCase + "@rutgers.edu");
+        return department != null && isValid(department, email, 0, email.length());
+    }
+
+    /**
+     * Checks if part of a character sequence is the email of a department,
+     * that is the department name followed by "@rutgers.edu" in any letter
+     * case. The characters are compared in place, without building strings.
+     * 
+     * @param department the department of the contact
+     * @param text       the text holding the email
+     * @param start      the index of the first character of the email
+     * @param end        the index after the last character of the email
+     * @return true if the email belongs to the department, false otherwise
+     */
+    public static boolean isValid(Department department, String text, int start, int end) {
+        String name = department.name();
+        return end - start == name.length() + EMAIL_DOMAIN.length()
+                && text.regionMatches(true, start, name, 0, name.length())
+                && text.regionMatches(true, start + name.length(), EMAIL_DOMAIN, 0, EMAIL_DOMAIN.length());
     }
 
     /**
@@ -10,28 +10,30 @@ import java.util.Calendar;
  * @author Altay Ozkan
  */
 public class Date implements Comparable<Date> {
-    private int year;
-    private int month;
-    private int day;
+    // valid dates from 1/1/1970 on are shared, in blocks of consecutive days
+    // made on first use, so whatever day the booking window starts on is covered
+    private static final int CACHE_BLOCK_DAYS = 512;
+    private static final int CACHE_BLOCKS = 128; // epoch days 0 to 65535, through 2149
+    private static final int MAX_FIELD_DIGITS = 9;
+    private static final char SEPARATOR = '/';
+    // filled on first use; a racing thread at worst builds an equal duplicate
+    private static final Date[][] CACHE = new Date[CACHE_BLOCKS][];
+
+    private final int year;
+    private final int month;
+    private final int day;
+    private final int epochDay;
+    private final String text; // the input of a malformed date, or null
 
     /**
      * Initializes a new instance of the Date class with a specific date.
+     * A string that is not in the form "mm/dd/yyyy" gives an invalid date that
+     * is shown as the string itself.
      * 
      * @param date a string representing a date in the form "mm/dd/yyyy"
      */
     public Date(String date) {
-        String[] dateParts = date.split("/");
-        if (dateParts.length == 3) {
-            try {
-                this.month = Integer.parseInt(dateParts[0]);
-                this.day = Integer.parseInt(dateParts[1]);
-                this.year = Integer.parseInt(dateParts[2]);
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid calendar date!");
-            }
-        } else {
-            System.err.println("Invalid calendar date!");
-        }
+        this(parse(date));
     }
 
     /**
@@ -42,6 +44,8 @@ public class Date implements Comparable<Date> {
         this.month = today.get(Calendar.MONTH) + 1;
         this.day = today.get(Calendar.DAY_OF_MONTH);
         this.year = today.get(Calendar.YEAR);
+        this.epochDay = epochDay(year, month, day);
+        this.text = null;
     }
 
     /**
@@ -53,10 +57,175 @@ public class Date implements Comparable<Date> {
         this.month = date.month;
         this.day = date.day;
         this.year = date.year;
+        this.epochDay = date.epochDay;
+        this.text = date.text;
+    }
+
+    /**
+     * Initializes a new instance of the Date class from its parts.
+     * 
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @param day   the day of the month
+     */
+    private Date(int year, int month, int day) {
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.epochDay = epochDay(year, month, day);
+        this.text = null;
+    }
+
+    /**
+     * Initializes the invalid date 0/0/0 for malformed text, keeping the text
+     * to show in error messages.
+     * 
+     * @param text  the text holding the date
+     * @param start the index of the first character of the date
+     * @param end   the index after the last character of the date
+     */
+    private Date(CharSequence text, int start, int end) {
+        this.year = 0;
+        this.month = 0;
+        this.day = 0;
+        this.epochDay = epochDay(0, 0, 0);
+        this.text = text.subSequence(start, end).toString();
+    }
+
+    /**
+     * Parses a date in the form "mm/dd/yyyy".
+     * 
+     * @param text the text to parse
+     * @return the parsed date, which is invalid if the text is malformed
+     */
+    public static Date parse(CharSequence text) {
+        return parse(text, 0, text.length());
     }
 
     /**
-     * Compares this date with another date.
+     * Parses a date in the form "mm/dd/yyyy" from part of a character sequence,
+     * in a single pass and without allocating. Valid dates from 1970 through
+     * 2149 are shared instances.
+     * 
+     * @param text  the text holding the date
+     * @param start the index of the first character of the date
+     * @param end   the index after the last character of the date
+     * @return the parsed date, or an invalid date shown as the text itself if
+     *         the text is malformed
+     */
+    public static Date parse(CharSequence text, int start, int end) {
+        int month = 0;
+        int day = 0;
+        int value = 0;
+        int field = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == SEPARATOR) {
+                if (digits == 0 || field == 2) {
+                    return new Date(text, start, end);
+                }
+                if (field == 0) {
+                    month = value;
+                } else {
+                    day = value;
+                }
+                field++;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < MAX_FIELD_DIGITS) {
+                value = value * 10 + (c - '0');
+                digits++;
+            } else {
+                return new Date(text, start, end);
+            }
+        }
+        if (field != 2 || digits == 0) {
+            return new Date(text, start, end);
+        }
+        return of(value, month, day);
+    }
+
+    /**
+     * Gets the date with the given parts, shared if it is valid and within the
+     * cached years.
+     * 
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @param day   the day of the month
+     * @return the date
+     */
+    private static Date of(int year, int month, int day) {
+        if (!isValid(year, month, day)) {
+            return new Date(year, month, day);
+        }
+        int epochDay = epochDay(year, month, day);
+        if (epochDay < 0 || epochDay >= CACHE_BLOCKS * CACHE_BLOCK_DAYS) {
+            return new Date(year, month, day);
+        }
+        Date[] block = CACHE[epochDay / CACHE_BLOCK_DAYS];
+        if (block == null) {
+            block = new Date[CACHE_BLOCK_DAYS];
+            CACHE[epochDay / CACHE_BLOCK_DAYS] = block;
+        }
+        Date cached = block[epochDay % CACHE_BLOCK_DAYS];
+        if (cached == null) {
+            cached = new Date(year, month, day);
+            block[epochDay % CACHE_BLOCK_DAYS] = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * Creates the date of a given epoch day; the inverse of toEpochDay().
+     * 
+     * @param epochDay the number of days since 1/1/1970
+     * @return the date of that day
+     */
+    public static Date ofEpochDay(int epochDay) {
+        Date[] block = epochDay >= 0 && epochDay < CACHE_BLOCKS * CACHE_BLOCK_DAYS
+                ? CACHE[epochDay / CACHE_BLOCK_DAYS] : null;
+        if (block != null && block[epochDay % CACHE_BLOCK_DAYS] != null) {
+            return block[epochDay % CACHE_BLOCK_DAYS];
+        }
+        int shifted = epochDay + Constants.EPOCH_DAY_OFFSET;
+        int era = Math.floorDiv(shifted, Constants.DAYS_PER_ERA);
+        int dayOfEra = shifted - era * Constants.DAYS_PER_ERA;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / (Constants.DAYS_PER_ERA - 1)) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / Constants.QUADRENNIAL
+                - yearOfEra / Constants.CENTENNIAL);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * Constants.QUATERCENTENNIAL + (month <= 2 ? 1 : 0);
+        return of(year, month, day);
+    }
+
+    /**
+     * Computes the number of days between 1/1/1970 and a date. The result
+     * saturates at the int range, so a huge year can never wrap around to a
+     * day close to today.
+     * 
+     * @param year  the year
+     * @param month the month, 1 to 12
+     * @param day   the day of the month
+     * @return the epoch day of the date
+     */
+    private static int epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1L : year;
+        long era = Math.floorDiv(y, Constants.QUATERCENTENNIAL);
+        long yearOfEra = y - era * Constants.QUATERCENTENNIAL;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / Constants.QUADRENNIAL - yearOfEra / Constants.CENTENNIAL
+                + dayOfYear;
+        long epochDay = era * Constants.DAYS_PER_ERA + dayOfEra - Constants.EPOCH_DAY_OFFSET;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, epochDay));
+    }
+
+    /**
+     * Compares this date with another date. Valid dates are ordered by their
+     * epoch days alone; the parts only break ties between invalid dates that
+     * fall on the same day.
      * 
      * @param date the date to compare to
      * @return a negative integer, zero, or a positive integer as this date is less
@@ -64,14 +233,14 @@ public class Date implements Comparable<Date> {
      */
     @Override
     public int compareTo(Date date) {
-        if (this.year != date.year) {
+        if (this.epochDay != date.epochDay) {
+            return Integer.compare(this.epochDay, date.epochDay);
+        } else if (this.year != date.year) {
             return Integer.compare(this.year, date.year);
         } else if (this.month != date.month) {
             return Integer.compare(this.month, date.month);
-        } else if (this.day != date.day) {
-            return Integer.compare(this.day, date.day);
         } else {
-            return 0;
+            return Integer.compare(this.day, date.day);
         }
     }
 
@@ -90,6 +259,18 @@ public class Date implements Comparable<Date> {
      * @return true if this date is a valid calendar date, false otherwise
      */
     public boolean isValid() {
+        return isValid(year, month, day);
+    }
+
+    /**
+     * Checks if the given parts form a valid calendar date.
+     * 
+     * @param year  the year
+     * @param month the month
+     * @param day   the day of the month
+     * @return true if the parts form a valid calendar date, false otherwise
+     */
+    private static boolean isValid(int year, int month, int day) {
         if (month < 1 || month > Constants.MONTHS_COUNT || day < 1 || year < 0) {
             return false;
         }
@@ -116,13 +297,41 @@ public class Date implements Comparable<Date> {
     /**
      * Returns the textual representation of this date.
      * 
-     * @return a string representing this date in the form "mm/dd/yyyy"
+     * @return a string representing this date in the form "mm/dd/yyyy", or the
+     *         text that was given for a malformed date
      */
     @Override
     public String toString() {
+        if (text != null) {
+            return text;
+        }
         return month + "/" + day + "/" + year;
     }
 
+    /**
+     * Appends the textual representation of this date to a string builder.
+     * 
+     * @param builder the builder to append to
+     * @return the same builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        if (text != null) {
+            return builder.append(text);
+        }
+        return builder.append(month).append('/').append(day).append('/').append(year);
+    }
+
+    /**
+     * Returns the number of days between 1/1/1970 and this date, negative for
+     * dates before it. Consecutive calendar dates map to consecutive integers,
+     * which makes the result suitable as a dense array or bitset index.
+     * 
+     * @return the epoch day of this date
+     */
+    public int toEpochDay() {
+        return epochDay;
+    }
+
     /**
      * Getter method for the day of a date
      * 
@@ -166,6 +375,16 @@ public class Date implements Comparable<Date> {
         return this.year == date.year && this.month == date.month && this.day == date.day;
     }
 
+    /**
+     * Returns a hash code consistent with equals, based on the epoch day.
+     * 
+     * @return the hash code of this date
+     */
+    @Override
+    public int hashCode() {
+        return epochDay;
+    }
+
     /**
      * Executes various test cases to check the validity of dates.
      * 
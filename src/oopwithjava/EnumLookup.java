@@ -0,0 +1,115 @@
+package oopwithjava;
+
+/**
+ * Finds the enum constant named by a run of characters, without building a
+ * string for the run.
+ * The constants are kept in a small open-addressing hash table built once, so
+ * a lookup hashes the characters in place and usually compares a single name.
+ *
+ * @param <T> the type of the enum
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class EnumLookup<T extends Enum<T>> {
+    private final Object[] table;
+    private final int mask;
+    private final boolean ignoreCase;
+
+    /**
+     * Builds the lookup table of an enum.
+     *
+     * @param type       the class of the enum
+     * @param ignoreCase true to match names regardless of ASCII letter case
+     */
+    public EnumLookup(Class<T> type, boolean ignoreCase) {
+        T[] constants = type.getEnumConstants();
+        int size = Integer.highestOneBit(Math.max(constants.length, 1) * 4 - 1);
+        this.table = new Object[size];
+        this.mask = size - 1;
+        this.ignoreCase = ignoreCase;
+        for (T constant : constants) {
+            int slot = hash(constant.name(), 0, constant.name().length()) & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = constant;
+        }
+    }
+
+    /**
+     * Finds the constant named by a whole string.
+     *
+     * @param name the name
+     * @return the constant, or null if no constant has that name
+     */
+    public T find(String name) {
+        return find(name, 0, name.length());
+    }
+
+    /**
+     * Finds the constant named by part of a character sequence.
+     *
+     * @param text  the text holding the name
+     * @param start the index of the first character of the name
+     * @param end   the index after the last character of the name
+     * @return the constant, or null if no constant has that name
+     */
+    @SuppressWarnings("unchecked")
+    public T find(CharSequence text, int start, int end) {
+        for (int slot = hash(text, start, end) & mask; table[slot] != null; slot = (slot + 1) & mask) {
+            T constant = (T) table[slot];
+            if (matches(constant.name(), text, start, end)) {
+                return constant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hashes a run of characters, folding ASCII letters to upper case if case
+     * is ignored.
+     *
+     * @param text  the text holding the characters
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the hash of the characters
+     */
+    private int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(text.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Checks if a run of characters spells a name.
+     *
+     * @param name  the name of a constant
+     * @param text  the text holding the characters
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return true if the characters spell the name
+     */
+    private boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != fold(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Folds an ASCII lower case letter to upper case if case is ignored.
+     *
+     * @param c the character
+     * @return the character to compare with the constant names
+     */
+    private char fold(char c) {
+        return ignoreCase && c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+    }
+}
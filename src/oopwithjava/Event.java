@@ -92,6 +92,20 @@ public class Event implements Comparable<Event> {
                 && this.location.equals(event.location);
     }
 
+    /**
+     * Returns a hash code consistent with equals, based on the date, timeslot and
+     * location of the event.
+     *
+     * @return the hash code of the event
+     */
+    @Override
+    public int hashCode() {
+        int result = date.hashCode();
+        result = 31 * result + startTime.ordinal();
+        result = 31 * result + location.ordinal();
+        return result;
+    }
+
     /**
      * Returns a string representation of the event.
      *
@@ -99,10 +113,24 @@ public class Event implements Comparable<Event> {
      */
     @Override
     public String toString() {
-        return "[Event Date: " + date + "] [Start: " + startTime.getHour() + ":" + startTime.getMinute()
-                + startTime.getAMorPM() + "] [End: " + startTime.getEndTime(duration) + "] @" + location.name() + " ("
-                + location.getBuilding() + ", " + location.getCampus() + ") [Contact: "
-                + contact.getDepartment().getFullName() + ", " + contact.getEmail() + "]";
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the string representation of the event to a string builder,
+     * without building intermediate strings.
+     *
+     * @param builder the builder to append to
+     * @return the same builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        builder.append("[Event Date: ");
+        date.appendTo(builder).append("] [Start: ").append(startTime.getStartTime()).append("] [End: ")
+                .append(startTime.getEndTime(duration)).append("] @").append(location.name()).append(" (")
+                .append(location.getBuilding()).append(", ").append(location.getCampus().getName())
+                .append(") [Contact: ").append(contact.getDepartment().getFullName()).append(", ")
+                .append(contact.getEmail()).append(']');
+        return builder;
     }
 
     /**
@@ -1,17 +1,96 @@
 package oopwithjava;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * Represents an Event Calendar, holding and managing a list of events.
- * Provides functionalities to add, remove, and print events, and sort events by
- * date, campus, and department.
+ * Provides functionalities to add, remove, and print events, and keeps ordered
+ * views of the events by date, campus, and department. The ordered views and
+ * the interval index are built the first time they are read and kept up to
+ * date from then on, so filling a calendar, as a log replay does, only costs
+ * the array, the hash index and the occupancy map.
  *
  * @author Jeffery Sypytkowski
  * @author Altay Ozkan
  */
 
-public class EventCalendar {
+public class EventCalendar implements BookingCalendar {
+    // position of each location in campus and building order
+    static final int[] CAMPUS_RANK = rank(Location.values(),
+            Comparator.comparing((Location location) -> location.getCampus().getName())
+                    .thenComparing(Location::getBuilding));
+    // position of each department in full name order
+    static final int[] DEPARTMENT_RANK = rank(Department.values(),
+            Comparator.comparing(Department::getFullName));
+
+    /**
+     * Orders events by date and timeslot, then by location. This is the order
+     * of the packed booking keys, so it is a single integer comparison.
+     */
+    static final Comparator<Event> BY_DATE = (first, second) -> Integer.compare(OccupancyMap.key(first),
+            OccupancyMap.key(second));
+
+    /**
+     * Orders events by campus and building, then by date and timeslot.
+     */
+    static final Comparator<Event> BY_CAMPUS = (first, second) -> {
+        int cmp = Integer.compare(CAMPUS_RANK[first.getLocation().ordinal()],
+                CAMPUS_RANK[second.getLocation().ordinal()]);
+        return cmp != 0 ? cmp : BY_DATE.compare(first, second);
+    };
+
+    /**
+     * Orders events by department name, then by date, timeslot and location.
+     */
+    static final Comparator<Event> BY_DEPARTMENT = (first, second) -> {
+        int cmp = Integer.compare(DEPARTMENT_RANK[first.getContact().getDepartment().ordinal()],
+                DEPARTMENT_RANK[second.getContact().getDepartment().ordinal()]);
+        return cmp != 0 ? cmp : BY_DATE.compare(first, second);
+    };
+
+    static final Timeslot FIRST_TIMESLOT = Timeslot.values()[0];
+    private static final Timeslot LAST_TIMESLOT = Timeslot.values()[Timeslot.values().length - 1];
+    static final Location FIRST_LOCATION = Location.values()[0];
+    private static final Location LAST_LOCATION = Location.values()[Location.values().length - 1];
+
+    // occupancy search patterns of every location, and of each campus by ordinal
+    static final long[] ALL_LOCATIONS = OccupancyMap.pattern(location -> true);
+    static final long[][] CAMPUS_LOCATIONS = new long[Campus.values().length][];
+
+    static {
+        for (Campus campus : Campus.values()) {
+            CAMPUS_LOCATIONS[campus.ordinal()] = OccupancyMap.pattern(location -> location.getCampus() == campus);
+        }
+    }
+
     private Event[] events;
     private int numEvents;
+    private int end; // slots in use, including the removed ones left as null tombstones
+    private int modCount; // structural changes, checked by iterators to fail fast
+    private long version; // adds and removes, for caching outputs of the calendar
+    private HashMap<Event, Integer> index; // booking (date, timeslot, location) -> array index
+    private OccupancyMap occupancy;
+    private IntervalIndex intervals;
+    private TreeSet<Event> byDate;
+    private TreeSet<Event> byCampus;
+    private TreeSet<Event> byDepartment;
+    private boolean viewsBuilt; // byDate, byCampus and byDepartment hold every event
+    private boolean intervalsBuilt; // intervals holds every event
+    private BookingStats stats;
 
     /**
      * Initializes an empty Event Calendar with an initial capacity.
@@ -19,206 +98,776 @@ public class EventCalendar {
     public EventCalendar() {
         this.events = new Event[Constants.INITIAL_CAPACITY];
         this.numEvents = 0;
+        this.end = 0;
+        this.index = new HashMap<>();
+        this.occupancy = new OccupancyMap();
+        this.intervals = new IntervalIndex();
+        this.byDate = new TreeSet<>(BY_DATE);
+        this.byCampus = new TreeSet<>(BY_CAMPUS);
+        this.byDepartment = new TreeSet<>(BY_DEPARTMENT);
+        this.stats = new BookingStats();
+    }
+
+    /**
+     * Ranks the constants of an enum by the given order.
+     *
+     * @param <T>    the type of the enum
+     * @param values the enum constants
+     * @param order  the order to rank them by
+     * @return the rank of each constant, indexed by ordinal
+     */
+    private static <T extends Enum<T>> int[] rank(T[] values, Comparator<T> order) {
+        T[] sorted = values.clone();
+        Arrays.sort(sorted, order);
+        int[] ranks = new int[values.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ranks[sorted[i].ordinal()] = i;
+        }
+        return ranks;
+    }
+
+    /**
+     * Creates a probe event that orders by date before every booking on the
+     * given date.
+     *
+     * @param date the date
+     * @return the probe event
+     */
+    static Event firstBookingOn(Date date) {
+        return new Event(date, FIRST_TIMESLOT, FIRST_LOCATION, null, 0);
+    }
+
+    /**
+     * Creates a probe event that orders by date after every booking on the
+     * given date.
+     *
+     * @param date the date
+     * @return the probe event
+     */
+    static Event lastBookingOn(Date date) {
+        return new Event(date, LAST_TIMESLOT, LAST_LOCATION, null, 0);
     }
 
     /**
      * Finds the index of the specified event in the events array.
+     * The lookup goes through the hash index, so it takes constant expected time.
      *
      * @param event the event to be searched for.
      * @return the index of the event, or Constants.NOT_FOUND if the event is not
      *         found.
      */
     private int find(Event event) {
-        for (int i = 0; i < numEvents; i++) {
-            if (events[i].equals(event)) {
-                return i;
-            }
+        Integer position = index.get(event);
+        if (position == null) {
+            return Constants.NOT_FOUND;
+        }
+        return position;
+    }
+
+    /**
+     * Makes room in the events array for more events. The array at least
+     * doubles when it grows, so adding n events copies O(n) elements in total.
+     *
+     * @param count the number of events about to be added
+     */
+    private void ensureCapacity(int count) {
+        if (end + count <= events.length) {
+            return;
+        }
+        compact();
+        if (end + count > events.length) {
+            events = Arrays.copyOf(events,
+                    Math.max(end + count, events.length + Math.max(events.length, Constants.GROWTH_AMOUNT)));
         }
-        return Constants.NOT_FOUND;
     }
 
     /**
-     * Increases the size of the events array.
+     * Closes the gaps left by removed events, keeping the events in insertion
+     * order and updating their positions in the index.
      */
-    private void grow() {
-        Event[] newEvents = new Event[events.length + Constants.GROWTH_AMOUNT];
-        for (int i = 0; i < numEvents; i++) {
-            newEvents[i] = events[i];
+    private void compact() {
+        if (end == numEvents) {
+            return;
+        }
+        int live = 0;
+        for (int i = 0; i < end; i++) {
+            if (events[i] != null) {
+                if (i != live) {
+                    events[live] = events[i];
+                    index.put(events[live], live);
+                }
+                live++;
+            }
         }
-        events = newEvents;
+        Arrays.fill(events, live, end, null);
+        end = live;
+        modCount++;
     }
 
     /**
-     * Adds a new event to the events array.
+     * Adds a new event to the events array, unless its date, timeslot and
+     * location are already booked.
      *
      * @param event the event to be added.
+     * @return true if the event was added, false if it conflicts with a booking.
      */
-    public void add(Event event) {
-        if (numEvents >= events.length) {
-            grow();
+    @Override
+    public boolean add(Event event) {
+        if (!occupancy.add(OccupancyMap.key(event))) {
+            return false;
         }
-        events[numEvents] = event;
+        ensureCapacity(1);
+        append(event);
+        return true;
+    }
+
+    /**
+     * Adds a batch of events, skipping every event that conflicts with a
+     * booking on the calendar or earlier in the batch. Storage is sized for the
+     * whole batch up front, and each event is checked and inserted in a single
+     * pass.
+     *
+     * @param batch the events to be added
+     * @return the number of events added
+     */
+    @Override
+    public int addAll(Event[] batch) {
+        ensureCapacity(batch.length);
+        int added = 0;
+        for (Event event : batch) {
+            if (occupancy.add(OccupancyMap.key(event))) {
+                append(event);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Stores an event whose booking is already marked in the occupancy map,
+     * in a slot that is known to be free.
+     *
+     * @param event the event to store
+     */
+    private void append(Event event) {
+        events[end] = event;
+        index.put(event, end);
+        if (intervalsBuilt) {
+            intervals.add(event);
+        }
+        if (viewsBuilt) {
+            byDate.add(event);
+            byCampus.add(event);
+            byDepartment.add(event);
+        }
+        stats.add(event);
+        end++;
         numEvents++;
+        modCount++;
+        version++;
     }
 
     /**
-     * Removes a specified event from the events array.
+     * Removes a specified event from the events array. The event leaves a
+     * tombstone, and the array is compacted once half of it is tombstones, so
+     * a removal takes constant amortized time besides the ordered views.
      *
      * @param event the event to be removed.
      * @return true if the event was successfully removed, false otherwise.
      */
+    @Override
     public boolean remove(Event event) {
-        int index = find(event);
-        if (index == Constants.NOT_FOUND)
+        if (!unlink(event)) {
+            return false;
+        }
+        if (numEvents < end / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Removes a batch of events, compacting the events array at most once.
+     *
+     * @param batch the events to be removed
+     * @return the number of events removed
+     */
+    public int removeAll(Event[] batch) {
+        int removed = 0;
+        for (Event event : batch) {
+            if (unlink(event)) {
+                removed++;
+            }
+        }
+        if (numEvents < end / 2) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Removes an event from every structure, leaving a tombstone in the events
+     * array.
+     *
+     * @param event the event to be removed
+     * @return true if the event was removed, false if it was not found
+     */
+    private boolean unlink(Event event) {
+        int position = find(event);
+        if (position == Constants.NOT_FOUND)
             return false;
 
-        for (int i = index; i < numEvents - 1; i++) {
-            events[i] = events[i + 1];
+        Event removed = events[position];
+        index.remove(removed);
+        occupancy.remove(OccupancyMap.key(removed));
+        if (intervalsBuilt) {
+            intervals.remove(removed);
         }
+        if (viewsBuilt) {
+            byDate.remove(removed);
+            byCampus.remove(removed);
+            byDepartment.remove(removed);
+        }
+        stats.remove(removed);
+        events[position] = null;
         numEvents--;
-        events[numEvents] = null;
+        modCount++;
+        version++;
         return true;
     }
 
     /**
      * Checks if a specified event is present in the events array.
+     * This is a single bit test in the occupancy map, without touching the
+     * events themselves.
      *
      * @param event the event to check for.
      * @return true if the event is found, false otherwise.
      */
+    @Override
     public boolean contains(Event event) {
-        return find(event) != Constants.NOT_FOUND;
+        return occupancy.contains(OccupancyMap.key(event));
     }
 
     /**
-     * Prints all events in the events array in the current order.
+     * Builds the ordered views from the events, if they are not built yet.
      */
-    public void print() {
-        if (events[0] == null)
-            System.out.println("Event calendar is empty!");
-        else {
-            System.out.println("* Event calendar *");
-            for (int i = 0; i < numEvents; i++) {
-                System.out.println(events[i]);
+    private void buildViews() {
+        if (viewsBuilt) {
+            return;
+        }
+        for (int i = 0; i < end; i++) {
+            if (events[i] != null) {
+                byDate.add(events[i]);
+                byCampus.add(events[i]);
+                byDepartment.add(events[i]);
             }
-            System.out.println("* end of event calendar *");
         }
+        viewsBuilt = true;
     }
 
     /**
-     * Sorts the events array by date.
+     * Builds the interval index from the events, if it is not built yet.
      */
-    private void sortByDate() {
-        for (int i = 0; i < numEvents - 1; i++) {
-            for (int j = 0; j < numEvents - i - 1; j++) {
-                if (events[j].compareTo(events[j + 1]) > 0) {
-                    Event temp = events[j];
-                    events[j] = events[j + 1];
-                    events[j + 1] = temp;
-                }
+    private void buildIntervals() {
+        if (intervalsBuilt) {
+            return;
+        }
+        for (int i = 0; i < end; i++) {
+            if (events[i] != null) {
+                intervals.add(events[i]);
             }
         }
+        intervalsBuilt = true;
     }
 
     /**
-     * Prints the events array by date.
+     * Checks if the time of the given event overlaps an event at the same
+     * location. An exact booking match is found by the occupancy map; any
+     * other overlap is searched for in the interval index.
+     *
+     * @param event the event to check for
+     * @return true if the event overlaps a booking, false otherwise
      */
-    public void printByDate() {
-        if (events[0] == null)
-            System.out.println("Event calendar is empty!");
+    @Override
+    public boolean overlaps(Event event) {
+        if (contains(event)) {
+            return true;
+        }
+        buildIntervals();
+        long start = IntervalIndex.start(event);
+        return intervals.overlaps(event.getLocation(), start, start + event.getDuration());
+    }
+
+    /**
+     * Lists the events at a location that overlap a span of time.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @return the overlapping events in start order
+     */
+    @Override
+    public List<Event> overlapping(Location location, long start, long end) {
+        buildIntervals();
+        return intervals.overlapping(location, start, end);
+    }
+
+    /**
+     * Prints all events in the events array in the current order.
+     */
+    public void print() {
+        print(new ReportWriter(System.out));
+    }
+
+    /**
+     * Prints all events in the events array in the current order. From the
+     * parallel threshold of the report writer on, the events are rendered in
+     * parallel, from a copy without tombstones if some events were removed.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void print(ReportWriter report) {
+        if (report.isParallel(numEvents)) {
+            Event[] ordered = end == numEvents ? events : getEvents();
+            report.writeReport(ReportWriter.HEADER, numEvents, i -> ordered[i]);
+            return;
+        }
+        if (numEvents == 0)
+            report.appendLine(ReportWriter.EMPTY_CALENDAR);
         else {
-            System.out.println("* Event calendar by event date and start time *");
-            sortByDate();
-            for (int i = 0; i < numEvents; i++) {
-                System.out.println(events[i]);
-            }
-            System.out.println("* end of event calendar *");
-        }
-    }
-
-    /**
-     * Sorts the events array by location.
-     */
-    private void sortByCampus() {
-        for (int i = 0; i < numEvents - 1; i++) {
-            for (int j = 0; j < numEvents - i - 1; j++) {
-                String campus1 = events[j].getLocation().getCampus();
-                String campus2 = events[j + 1].getLocation().getCampus();
-                int cmpCampus = campus1.compareTo(campus2);
-                if (cmpCampus > 0) {
-                    Event temp = events[j];
-                    events[j] = events[j + 1];
-                    events[j + 1] = temp;
-                } else if (cmpCampus == 0) {
-                    String building1 = events[j].getLocation().getBuilding();
-                    String building2 = events[j + 1].getLocation().getBuilding();
-                    int cmpBuilding = building1.compareTo(building2);
-                    if (cmpBuilding > 0) {
-                        Event temp = events[j];
-                        events[j] = events[j + 1];
-                        events[j + 1] = temp;
-                    }
+            report.appendLine(ReportWriter.HEADER);
+            for (int i = 0; i < end; i++) {
+                if (events[i] != null) {
+                    report.appendEvent(events[i]);
                 }
             }
+            report.appendLine(ReportWriter.FOOTER);
         }
+        report.flush();
+    }
+
+    /**
+     * Prints the events array by date.
+     */
+    public void printByDate() {
+        printByDate(new ReportWriter(System.out));
+    }
+
+    /**
+     * Prints the events array by date.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDate(ReportWriter report) {
+        buildViews();
+        writeView(ReportWriter.HEADER_BY_DATE, byDate, report);
+    }
+
+    /**
+     * Prints the events from one date through another by date, using the
+     * ordered date view, so it costs O(log n + k) for k events in the range.
+     *
+     * @param from   the first date of the range
+     * @param to     the last date of the range
+     * @param filter the test an event must pass to be printed
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDateRange(Date from, Date to, Predicate<Event> filter, ReportWriter report) {
+        buildViews();
+        Iterable<Event> range = from.compareTo(to) > 0 ? Collections.emptySet()
+                : byDate.subSet(firstBookingOn(from), true, lastBookingOn(to), true);
+        report.writeReport(ReportWriter.rangeHeader(from, to), ReportWriter.EMPTY_RANGE, range, filter);
+    }
+
+    /**
+     * Finds the earliest free bookings from one day through another by
+     * scanning the occupancy bitset a word at a time.
+     *
+     * @param fromDay the epoch day of the first date to search
+     * @param toDay   the epoch day of the last date to search
+     * @param campus  the campus to search, or null for every campus
+     * @param found   receives the packed keys of the free bookings in order
+     * @return the number of free bookings found
+     */
+    @Override
+    public int findFree(int fromDay, int toDay, Campus campus, int[] found) {
+        return occupancy.findFree(OccupancyMap.key(fromDay, FIRST_TIMESLOT, FIRST_LOCATION),
+                OccupancyMap.key(toDay + 1, FIRST_TIMESLOT, FIRST_LOCATION),
+                campus == null ? ALL_LOCATIONS : CAMPUS_LOCATIONS[campus.ordinal()], found);
     }
 
     /**
      * Prints the events array by location.
      */
     public void printByCampus() {
-        if (events[0] == null)
-            System.out.println("Event calendar is empty!");
-        else {
-            System.out.println("* Event calendar by campus and building *");
-            sortByCampus();
-            for (int i = 0; i < numEvents; i++) {
-                System.out.println(events[i]);
+        printByCampus(new ReportWriter(System.out));
+    }
+
+    /**
+     * Prints the events array by location.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByCampus(ReportWriter report) {
+        buildViews();
+        writeView(ReportWriter.HEADER_BY_CAMPUS, byCampus, report);
+    }
+
+    /**
+     * Prints the events array by department.
+     */
+    public void printByDepartment() {
+        printByDepartment(new ReportWriter(System.out));
+    }
+
+    /**
+     * Prints the events array by department.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDepartment(ReportWriter report) {
+        buildViews();
+        writeView(ReportWriter.HEADER_BY_DEPARTMENT, byDepartment, report);
+    }
+
+    /**
+     * Prints an ordered view of the events. The views are kept sorted, so from
+     * the parallel threshold of the report writer on, the view is only copied
+     * to an array, which is rendered in parallel.
+     *
+     * @param header the title line of the report
+     * @param view   the ordered view to print
+     * @param report the report writer to render into
+     */
+    private static void writeView(String header, TreeSet<Event> view, ReportWriter report) {
+        if (report.isParallel(view.size())) {
+            Event[] ordered = view.toArray(new Event[0]);
+            report.writeReport(header, ordered.length, i -> ordered[i]);
+        } else {
+            report.writeReport(header, view);
+        }
+    }
+
+    /**
+     * Gets the number of events in the calendar.
+     *
+     * @return the number of events.
+     */
+    @Override
+    public int size() {
+        return numEvents;
+    }
+
+    /**
+     * Gets the modification version of the calendar, which changes on every
+     * add and remove.
+     *
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the booking statistics, which are kept up to date on every add and
+     * remove.
+     *
+     * @return the statistics of the events
+     */
+    @Override
+    public BookingStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets a copy of the events in insertion order. The copy does not change
+     * when the calendar does, and taking it leaves the events array as it is,
+     * so live iterators stay valid.
+     *
+     * @return the events array.
+     */
+    public Event[] getEvents() {
+        if (end == numEvents) {
+            return Arrays.copyOf(events, numEvents);
+        }
+        Event[] live = new Event[numEvents];
+        int count = 0;
+        for (int i = 0; i < end; i++) {
+            if (events[i] != null) {
+                live[count++] = events[i];
             }
-            System.out.println("* end of event calendar *");
         }
+        return live;
     }
 
     /**
-     * Sorts the events array by department.
+     * Copies one of the ordered views of the events.
+     *
+     * @param order BY_DATE, BY_CAMPUS or BY_DEPARTMENT
+     * @return the events in that order
      */
-    private void sortByDepartment() {
-        for (int i = 0; i < numEvents - 1; i++) {
-            for (int j = 0; j < numEvents - i - 1; j++) {
-                String department1 = events[j].getContact().getDepartment().getFullName();
-                String department2 = events[j + 1].getContact().getDepartment().getFullName();
-                int cmp = department1.compareTo(department2);
-                if (cmp > 0) {
-                    Event temp = events[j];
-                    events[j] = events[j + 1];
-                    events[j + 1] = temp;
-                }
+    Event[] toArray(Comparator<Event> order) {
+        buildViews();
+        TreeSet<Event> view = order == BY_CAMPUS ? byCampus : order == BY_DEPARTMENT ? byDepartment : byDate;
+        return view.toArray(new Event[0]);
+    }
+
+    /**
+     * Copies the events from one date through another in date order, reading
+     * only the range from the ordered date view.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the events in the range by date
+     */
+    @Override
+    public Event[] toArray(Date from, Date to) {
+        if (from.compareTo(to) > 0) {
+            return new Event[0];
+        }
+        buildViews();
+        return byDate.subSet(firstBookingOn(from), true, lastBookingOn(to), true).toArray(new Event[0]);
+    }
+
+    /**
+     * Returns an iterator over the events in insertion order. The iterator is
+     * fail-fast: it throws ConcurrentModificationException once the calendar
+     * is changed other than through the iterator.
+     *
+     * @return an iterator over the events
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return new EventIterator();
+    }
+
+    /**
+     * Returns a spliterator over the events in insertion order, which splits
+     * by halving the backing range, so a parallel stream can split the
+     * traversal across threads. Like the iterator, it is fail-fast.
+     *
+     * @return a spliterator over the events
+     */
+    @Override
+    public Spliterator<Event> spliterator() {
+        return new EventSpliterator(0, end, modCount);
+    }
+
+    /**
+     * Returns a sequential stream of the events in insertion order.
+     *
+     * @return a stream of the events
+     */
+    public Stream<Event> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Gets one page of the events in insertion order. Removed events are
+     * skipped while reading, without compacting the events array.
+     *
+     * @param offset the number of events to skip
+     * @param limit  the largest number of events to return
+     * @return the events of the page, empty past the last event
+     */
+    public List<Event> page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("negative offset or limit");
+        }
+        int from = Math.min(offset, numEvents);
+        if (end == numEvents) {
+            return List.of(Arrays.copyOfRange(events, from, from + Math.min(limit, numEvents - from)));
+        }
+        ArrayList<Event> page = new ArrayList<>(Math.min(limit, numEvents - from));
+        int skipped = 0;
+        for (int i = 0; i < end && page.size() < limit; i++) {
+            if (events[i] != null && skipped++ >= from) {
+                page.add(events[i]);
             }
         }
+        return Collections.unmodifiableList(page);
     }
 
     /**
-     * Prints the events array by department.
+     * Gets one page of the events in date and timeslot order, continuing after
+     * a given booking. Passing the last event of one page gets the next page,
+     * even if the calendar changed in between. Each page costs O(log n + limit).
+     *
+     * @param after the booking to continue after, or null to start with the
+     *              earliest event
+     * @param limit the largest number of events to return
+     * @return the events of the page, empty past the last event
      */
-    public void printByDepartment() {
-        if (events[0] == null)
-            System.out.println("Event calendar is empty!");
-        else {
-            System.out.println("* Event calendar by department *");
-            sortByDepartment();
-            for (int i = 0; i < numEvents; i++) {
-                System.out.println(events[i]);
+    public List<Event> pageByDate(Event after, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("negative limit");
+        }
+        buildViews();
+        ArrayList<Event> page = new ArrayList<>(Math.min(limit, numEvents));
+        Iterator<Event> iterator = (after == null ? byDate : byDate.tailSet(after, false)).iterator();
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+
+    /**
+     * Iterates over the events array in insertion order, skipping tombstones.
+     */
+    private class EventIterator implements Iterator<Event> {
+        private final int expectedModCount = modCount;
+        private int cursor = skipTombstones(0);
+
+        /**
+         * Checks if there is another event.
+         *
+         * @return true if there is another event
+         */
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        /**
+         * Gets the next event.
+         *
+         * @return the next event
+         */
+        @Override
+        public Event next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= end) {
+                throw new NoSuchElementException();
             }
-            System.out.println("* end of event calendar *");
+            Event event = events[cursor];
+            cursor = skipTombstones(cursor + 1);
+            return event;
         }
     }
 
     /**
-     * Gets the array of events.
+     * Finds the first event position at or after the given slot.
      *
-     * @return the events array.
+     * @param position the slot to start at
+     * @return the position of the next event, or the end of the used slots
      */
-    public Event[] getEvents() {
-        return events;
+    private int skipTombstones(int position) {
+        while (position < end && events[position] == null) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Splits and traverses a range of the events array, skipping tombstones.
+     */
+    private class EventSpliterator implements Spliterator<Event> {
+        private final int expectedModCount;
+        private int position;
+        private final int fence;
+
+        /**
+         * Initializes a spliterator over a range of slots.
+         *
+         * @param position         the first slot
+         * @param fence            the slot after the last one
+         * @param expectedModCount the change count the calendar must keep
+         */
+        EventSpliterator(int position, int fence, int expectedModCount) {
+            this.position = position;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Passes the next event to the action, if there is one.
+         *
+         * @param action the action to perform
+         * @return false if there were no events left
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Event> action) {
+            while (position < fence) {
+                Event event = events[position++];
+                if (event != null) {
+                    action.accept(event);
+                    checkForComodification();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Passes every remaining event to the action.
+         *
+         * @param action the action to perform
+         */
+        @Override
+        public void forEachRemaining(Consumer<? super Event> action) {
+            Event[] slots = events;
+            for (; position < fence; position++) {
+                if (slots[position] != null) {
+                    action.accept(slots[position]);
+                }
+            }
+            checkForComodification();
+        }
+
+        /**
+         * Splits off the first half of the remaining range.
+         *
+         * @return a spliterator over the first half, or null if the range is too
+         *         small to split
+         */
+        @Override
+        public Spliterator<Event> trySplit() {
+            int middle = (position + fence) >>> 1;
+            if (middle <= position) {
+                return null;
+            }
+            EventSpliterator prefix = new EventSpliterator(position, middle, expectedModCount);
+            position = middle;
+            return prefix;
+        }
+
+        /**
+         * Estimates the number of remaining events; removed events left in the
+         * range make it an upper bound.
+         *
+         * @return the number of remaining slots
+         */
+        @Override
+        public long estimateSize() {
+            return fence - position;
+        }
+
+        /**
+         * Reports that the events are ordered, distinct and never null.
+         *
+         * @return the characteristics of this spliterator
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | NONNULL;
+        }
+
+        /**
+         * Fails if the calendar was changed during the traversal.
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
     }
 }
@@ -1,7 +1,10 @@
 package oopwithjava;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
-import java.util.StringTokenizer;
+import java.util.function.Predicate;
 
 /**
  * EventOrganizer is responsible for adding, removing and managing events in the
@@ -14,15 +17,62 @@ import java.util.StringTokenizer;
 public class EventOrganizer {
     private Scanner scanner;
     private boolean running;
-    private EventCalendar eventCalendar;
+    private RecurringCalendar eventCalendar;
+    private boolean columnar;
+    private ReportWriter report;
+    private EventParser parser;
+    private BookingWindow window;
+    private int[] freeBookings;
+    private LineTokenizer tokenizer;
+    private WriteAheadLog log;
+    private CommandMetrics metrics;
+    private ReportCache reportCache;
 
     /**
      * Initializes the EventOrganizer by setting up the necessary components.
      */
     public EventOrganizer() {
+        this(new BookingWindow());
+    }
+
+    /**
+     * Initializes the EventOrganizer with the given range of bookable dates.
+     *
+     * @param window the range of dates that can be booked
+     */
+    public EventOrganizer(BookingWindow window) {
+        this(window, false);
+    }
+
+    /**
+     * Initializes the EventOrganizer with the given range of bookable dates and
+     * the given storage for the calendar.
+     *
+     * @param window   the range of dates that can be booked
+     * @param columnar true to store the events column by column, false to keep
+     *                 them as event objects
+     */
+    public EventOrganizer(BookingWindow window, boolean columnar) {
         scanner = new Scanner(System.in);
         running = false;
-        eventCalendar = new EventCalendar();
+        this.columnar = columnar;
+        eventCalendar = new RecurringCalendar(columnar ? new ColumnarEventCalendar() : new EventCalendar());
+        report = new ReportWriter(System.out);
+        parser = new EventParser(System.out, window);
+        this.window = window;
+        freeBookings = new int[Constants.FREE_BOOKINGS_LISTED];
+        tokenizer = new LineTokenizer();
+        metrics = new CommandMetrics();
+        reportCache = new ReportCache();
+    }
+
+    /**
+     * Gets the per-command latencies and the outcome counts.
+     *
+     * @return the command metrics
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -38,186 +88,427 @@ public class EventOrganizer {
             processCommand(commandLine);
         }
 
+        closeLog();
         System.out.println("Event Organizer terminated.");
     }
 
     /**
-     * Processes the user input command.
+     * Sets the number of events from which the print commands sort and render
+     * in parallel.
+     *
+     * @param threshold the smallest number of events to print in parallel
+     */
+    public void setParallelThreshold(int threshold) {
+        report.setParallelThreshold(threshold);
+    }
+
+    /**
+     * Replays the write-ahead log into the calendar, then records every
+     * following add and remove in it.
+     *
+     * @param fileName  the name of the log file
+     * @param syncEvery the number of records written and forced to disk together
+     * @return true if the log is in use, false if it could not be opened
+     */
+    public boolean openLog(String fileName, int syncEvery) {
+        try {
+            long start = System.nanoTime();
+            long records = WriteAheadLog.replay(Path.of(fileName), eventCalendar);
+            System.out.printf("%s: %d log records replayed in %d ms.%n", fileName, records,
+                    (System.nanoTime() - start) / Constants.NANOS_PER_MILLI);
+            log = new WriteAheadLog(Path.of(fileName), syncEvery);
+            return true;
+        } catch (IOException e) {
+            System.out.println(fileName + ": Cannot open event log!");
+            return false;
+        }
+    }
+
+    /**
+     * Forces the remaining log records to disk and closes the log.
+     */
+    public void closeLog() {
+        if (log == null)
+            return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.out.println("Cannot write to the event log!");
+        }
+        log = null;
+    }
+
+    /**
+     * Records a calendar change in the write-ahead log, if one is open.
+     *
+     * @param event the added or removed event
+     * @param added true for an add, false for a remove
+     */
+    private void logChange(Event event, boolean added) {
+        if (log == null)
+            return;
+        try {
+            if (added)
+                log.logAdd(event);
+            else
+                log.logRemove(event);
+        } catch (IOException e) {
+            System.out.println("Cannot write to the event log!");
+        }
+    }
+
+    /**
+     * Runs every command of a command file, then reports the throughput.
+     * Commands go through the same processing as the interactive commands; a Q
+     * command in the file stops the Event Organizer.
+     *
+     * @param fileName the name of the command file
+     */
+    public void runBatch(String fileName) {
+        running = true;
+        long start = System.nanoTime();
+        long commands;
+        try {
+            commands = new CommandFileReader(Path.of(fileName)).forEachLine(commandLine -> {
+                processCommand(commandLine);
+                return running;
+            });
+        } catch (IOException e) {
+            System.out.println(fileName + ": Cannot read command file!");
+            return;
+        }
+        long elapsedNanos = Math.max(System.nanoTime() - start, 1);
+        System.out.printf("%s: %d commands processed in %d ms (%d commands/sec).%n", fileName, commands,
+                elapsedNanos / Constants.NANOS_PER_MILLI, commands * Constants.NANOS_PER_SECOND / elapsedNanos);
+    }
+
+    /**
+     * Processes the user input command, recording how long it takes.
      *
      * @param commandLine the input command line from the user
      */
     private void processCommand(String commandLine) {
-        StringTokenizer tokenizer = new StringTokenizer(commandLine);
+        tokenizer.reset(commandLine);
         if (tokenizer.hasMoreTokens()) {
-            String command = tokenizer.nextToken();
+            long start = System.nanoTime();
+            Command command = Command.next(tokenizer);
+            if (command == null) {
+                System.out.println(tokenizer.token() + " is an invalid command!");
+                metrics.count(Outcome.INVALID_COMMAND);
+                return;
+            }
             switch (command) {
-                case "Q" -> running = false;
-                case "A" -> addEvent(tokenizer);
-                case "R" -> removeEvent(tokenizer);
-                case "P" -> eventCalendar.print();
-                case "PE" -> eventCalendar.printByDate();
-                case "PC" -> eventCalendar.printByCampus();
-                case "PD" -> eventCalendar.printByDepartment();
-                default -> System.out.println(command + " is an invalid command!");
+                case Q -> running = false;
+                case A -> addEvent(tokenizer);
+                case AW -> addSeries(tokenizer);
+                case R -> removeEvent(tokenizer);
+                case P -> printCached(command.name(), () -> eventCalendar.print(report));
+                case PE -> printCached(command.name(), () -> eventCalendar.printByDate(report));
+                case PC -> printCached(command.name(), () -> eventCalendar.printByCampus(report));
+                case PD -> printCached(command.name(), () -> eventCalendar.printByDepartment(report));
+                case PR -> printRange(tokenizer);
+                case FIND -> findFree(tokenizer);
+                case STATS -> printStats(tokenizer);
+                case METRICS -> metrics.writeReport(report);
+                case BATCH -> processBatch(tokenizer);
+                case SAVE -> saveSnapshot(tokenizer);
+                case LOAD -> loadSnapshot(tokenizer);
             }
+            metrics.record(command, System.nanoTime() - start);
         }
     }
 
     /**
-     * Adds an event to the calendar after performing various validation checks.
+     * Prints a report, or a copy of it if it was already rendered for the
+     * current version of the calendar. A rendered report is kept in the report
+     * cache until the calendar changes or the report is evicted.
      *
-     * @param tokenizer the tokenizer containing the event details
-     * @return if event not added
+     * @param key    the command and its parameters, identifying the report
+     * @param render renders the report into the report writer
      */
-    private void addEvent(StringTokenizer tokenizer) {
-        Date newDate = new Date(tokenizer.nextToken());
-        if (!dateCheck(newDate))
-            return;
-        Timeslot newTimeslot = getEnumValue(tokenizer.nextToken().toUpperCase(), Timeslot.class);
-        if (newTimeslot == null) {
-            System.out.println("Invalid time slot!");
+    private void printCached(String key, Runnable render) {
+        long version = eventCalendar.getVersion();
+        String cached = reportCache.get(key, version);
+        metrics.countCacheLookup(cached != null);
+        if (cached != null) {
+            report.writeRendered(cached);
             return;
         }
-        Location newLocation = getEnumValue(tokenizer.nextToken().toUpperCase(), Location.class);
-        if (newLocation == null) {
-            System.out.println("Invalid location!");
-            return;
-        }
-        Contact newContact = new Contact(getEnumValue(tokenizer.nextToken().toUpperCase(), Department.class),
-                tokenizer.nextToken());
-        if (!newContact.isValid()) {
-            System.out.println("Invalid contact information!");
+        report.startCapture(Constants.REPORT_CACHE_CHARS);
+        render.run();
+        reportCache.put(key, version, report.endCapture());
+    }
+
+    /**
+     * Runs the command file named by the next token.
+     *
+     * @param tokenizer the tokenizer containing the command file name
+     */
+    private void processBatch(LineTokenizer tokenizer) {
+        if (!tokenizer.hasMoreTokens()) {
+            System.out.println("Missing command file name!");
             return;
         }
-        Event newEvent = new Event(newDate, newTimeslot, newLocation, newContact,
-                Integer.parseInt(tokenizer.nextToken()));
-        if (conflict(newEvent, eventCalendar)) {
-            System.out.println("The event is already on the calendar.");
+        runBatch(tokenizer.nextToken());
+    }
+
+    /**
+     * Saves the calendar to the snapshot file named by the next token.
+     *
+     * @param tokenizer the tokenizer containing the snapshot file name
+     */
+    private void saveSnapshot(LineTokenizer tokenizer) {
+        if (!tokenizer.hasMoreTokens()) {
+            System.out.println("Missing snapshot file name!");
             return;
         }
-        if (newEvent.getDuration() < 30 || newEvent.getDuration() > 120) {
-            System.out.println("Event duration must be at least 30 minutes and at most 120 minutes");
-        } else {
-            eventCalendar.add(newEvent);
-            System.out.println("Event added to the calendar.");
+        String fileName = tokenizer.nextToken();
+        try {
+            int saved = CalendarSnapshot.save(Path.of(fileName), eventCalendar);
+            System.out.println(fileName + ": " + saved + " events saved.");
+        } catch (IOException e) {
+            System.out.println(fileName + ": Cannot save snapshot (" + e.getMessage() + ")!");
         }
     }
 
     /**
-     * Removes an event from the calendar based on event details.
+     * Replaces the calendar with the snapshot file named by the next token.
+     * If a write-ahead log is open, it is rewritten to hold the loaded events
+     * before the calendar is replaced, so a restart replays the loaded
+     * calendar; if the log cannot be rewritten, the snapshot is not loaded.
      *
-     * @param tokenizer the tokenizer containing the event details for removal
-     * @return if date not removed
+     * @param tokenizer the tokenizer containing the snapshot file name
      */
-    private void removeEvent(StringTokenizer tokenizer) {
+    private void loadSnapshot(LineTokenizer tokenizer) {
+        if (!tokenizer.hasMoreTokens()) {
+            System.out.println("Missing snapshot file name!");
+            return;
+        }
+        String fileName = tokenizer.nextToken();
+        long start = System.nanoTime();
+        BookingCalendar loaded;
         try {
-            Date removeDate = new Date(tokenizer.nextToken());
-            // Adding the dateCheck here similar to addEvent method
-            if (!dateCheck(removeDate))
-                return;
-            Timeslot removeTimeslot = getEnumValue(tokenizer.nextToken().toUpperCase(), Timeslot.class);
-            if (removeTimeslot == null) {
-                System.out.println("Invalid time slot!");
-                return;
-            }
-            Location removeLocation = getEnumValue(tokenizer.nextToken().toUpperCase(), Location.class);
-            if (removeLocation == null) {
-                System.out.println("Invalid location!");
+            loaded = columnar ? CalendarSnapshot.loadColumnar(Path.of(fileName))
+                    : CalendarSnapshot.load(Path.of(fileName));
+        } catch (IOException e) {
+            System.out.println(fileName + ": Cannot load snapshot (" + e.getMessage() + ")!");
+            return;
+        }
+        if (log != null) {
+            try {
+                log.checkpoint(loaded);
+            } catch (IOException e) {
+                System.out.println(fileName + ": Cannot rewrite the event log, snapshot not loaded!");
                 return;
             }
+        }
+        eventCalendar = new RecurringCalendar(loaded);
+        reportCache.clear();
+        System.out.printf("%s: %d events loaded in %d ms.%n", fileName, eventCalendar.size(),
+                (System.nanoTime() - start) / Constants.NANOS_PER_MILLI);
+    }
 
-            // temporary event object
-            Event removeEvent = new Event(removeDate, removeTimeslot, removeLocation, null, 0);
+    /**
+     * Prints the events between two dates, optionally only those of one campus
+     * or department.
+     *
+     * @param tokenizer the tokenizer containing the dates and the filter
+     */
+    private void printRange(LineTokenizer tokenizer) {
+        if (tokenizer.countTokens() < 2) {
+            System.out.println("Missing date range!");
+            return;
+        }
+        Date from = parser.parseRangeDate(tokenizer);
+        if (from == null)
+            return;
+        Date to = parser.parseRangeDate(tokenizer);
+        if (to == null)
+            return;
+        boolean filtered = tokenizer.hasMoreTokens();
+        Predicate<Event> filter = parser.parseFilter(tokenizer);
+        if (filter == null)
+            return;
+        String key = "PR " + from + " " + to + (filtered ? " " + tokenizer.token().toUpperCase() : "");
+        printCached(key, () -> eventCalendar.printByDateRange(from, to, filter, report));
+    }
 
-            // Remove the event from event calendar
-            boolean removed = eventCalendar.remove(removeEvent);
-            if (removed) {
-                System.out.println("Event has been removed from the calendar!");
-            } else {
-                System.out.println("Cannot remove; event is not in the calendar!");
+    /**
+     * Lists the earliest free bookings between two dates, optionally only on
+     * one campus. Only dates inside the booking window are searched.
+     *
+     * @param tokenizer the tokenizer containing the dates and the campus
+     */
+    private void findFree(LineTokenizer tokenizer) {
+        if (tokenizer.countTokens() < 2) {
+            System.out.println("Missing date range!");
+            return;
+        }
+        Date from = parser.parseRangeDate(tokenizer);
+        if (from == null)
+            return;
+        Date to = parser.parseRangeDate(tokenizer);
+        if (to == null)
+            return;
+        Campus campus = null;
+        if (tokenizer.hasMoreTokens()) {
+            campus = tokenizer.nextEnum(EventParser.CAMPUSES);
+            if (campus == null) {
+                System.out.println(tokenizer.token() + ": Invalid campus!");
+                return;
             }
-        } catch (Exception e) {
-            System.out.println("Error parsing event details for removal.");
         }
+        int fromDay = Math.max(from.toEpochDay(), window.getFirstDay());
+        int toDay = Math.min(to.toEpochDay(), window.getLastDay());
+        Campus searched = campus;
+        // the window moves daily, so the searched days are part of the key
+        String key = "FIND " + from + " " + to + " " + fromDay + " " + toDay
+                + (campus == null ? "" : " " + campus.name());
+        printCached(key, () -> {
+            int count = fromDay > toDay ? 0 : eventCalendar.findFree(fromDay, toDay, searched, freeBookings);
+            report.writeFreeBookings(from, to, freeBookings, count);
+        });
     }
 
     /**
-     * Checks if the new event conflicts with existing events in the calendar.
+     * Prints the booking statistics, with the room minutes of the month of the
+     * given date, or of the current month if no date is given.
      *
-     * @param newEvent      the new event to check for conflicts
-     * @param eventCalendar the event calendar to check the new event against
-     * @return true if there is a conflict, false otherwise
+     * @param tokenizer the tokenizer containing the optional date
      */
-    private static boolean conflict(Event newEvent, EventCalendar eventCalendar) {
-        for (Event e : eventCalendar.getEvents()) {
-            if (e == null) {
-                return false;
-            }
-            if (e.getDate().equals(newEvent.getDate()) && e.getTimeslot().equals(newEvent.getTimeslot())
-                    && e.getLocation().equals(newEvent.getLocation())) {
-                return true;
-            }
+    private void printStats(LineTokenizer tokenizer) {
+        Date month = Date.ofEpochDay(window.getFirstDay());
+        if (tokenizer.hasMoreTokens()) {
+            month = parser.parseRangeDate(tokenizer);
+            if (month == null)
+                return;
         }
-        return false;
+        Date reported = month;
+        printCached("STATS " + month, () -> eventCalendar.getStats().writeReport(report, reported));
     }
 
     /**
-     * Checks if date is valid and within the upcoming 6 months
+     * Adds an event to the calendar after performing various validation checks.
      *
-     * @return true if date is valid
+     * @param tokenizer the tokenizer containing the event details
+     * @return if event not added
+     */
+    private void addEvent(LineTokenizer tokenizer) {
+        Event newEvent = parser.parseEvent(tokenizer);
+        if (newEvent == null) {
+            metrics.count(parser.getRejection());
+            return;
+        }
+        if (conflict(newEvent, eventCalendar)) {
+            System.out.println("The event is already on the calendar.");
+            metrics.count(Outcome.CONFLICT);
+            return;
+        }
+        if (!parser.durationCheck(newEvent.getDuration())) {
+            metrics.count(Outcome.INVALID_DURATION);
+            return;
+        }
+        if (eventCalendar.add(newEvent)) {
+            logChange(newEvent, true);
+            System.out.println("Event added to the calendar.");
+            metrics.count(Outcome.ADDED);
+        } else {
+            System.out.println("The event is already on the calendar.");
+            metrics.count(Outcome.CONFLICT);
+        }
+    }
+
+    /**
+     * Adds a weekly series of events to the calendar. The first occurrence is
+     * checked like a single event, the last one must be within the booking
+     * window, and no occurrence may conflict with a booking.
      *
-     * @return false if date is invalid
+     * @param tokenizer the tokenizer containing the event details and the
+     *                  number of weeks
      */
-    private Boolean dateCheck(Date date) {
-        if (!date.isValid()) {
-            System.out.println(date + ": Invalid calendar date!");
-            return false;
+    private void addSeries(LineTokenizer tokenizer) {
+        Event first = parser.parseEvent(tokenizer);
+        if (first == null) {
+            metrics.count(parser.getRejection());
+            return;
         }
-        Date todayDate = new Date();
-        if (date.compareTo(todayDate) < 0) {
-            System.out.println(date + ": Event date must be a future date!");
-            return false;
+        if (!parser.durationCheck(first.getDuration())) {
+            metrics.count(Outcome.INVALID_DURATION);
+            return;
         }
-        if ((date.getYear() == todayDate.getYear()) && (date.getMonth() == todayDate.getMonth() + 6)
-                && date.getDay() > todayDate.getDay()) {
-            System.out.println(date + ": Event date must be within 6 months!");
-            return false;
+        int weeks;
+        try {
+            weeks = tokenizer.nextInt();
+        } catch (NoSuchElementException | NumberFormatException e) {
+            weeks = 0;
         }
-        if (date.getYear() == todayDate.getYear() && date.getMonth() > todayDate.getMonth() + 6) {
-            System.out.println(date + ": Event date must be within 6 months!");
-            return false;
+        if (weeks < 1 || weeks > Constants.MAX_SERIES_WEEKS) {
+            System.out.println("Number of weeks must be at least 1 and at most " + Constants.MAX_SERIES_WEEKS);
+            metrics.count(Outcome.INVALID_WEEKS);
+            return;
         }
-        if ((date.getYear() == todayDate.getYear() + 1) && (date.getMonth() == (todayDate.getMonth() + 6) % 12)
-                && date.getDay() > todayDate.getDay()) {
-            System.out.println(date + ": Event date must be within 6 months!");
-            return false;
+        EventSeries series = new EventSeries(first, weeks);
+        if (!parser.dateCheck(Date.ofEpochDay(series.epochDay(weeks - 1)))) {
+            metrics.count(parser.getRejection());
+            return;
         }
-        if ((date.getYear() == todayDate.getYear() + 1) && (date.getMonth() > (todayDate.getMonth() + 6) % 12)) {
-            System.out.println(date + ": Event date must be within 6 months!");
-            return false;
+        int conflict = eventCalendar.addSeries(series);
+        if (conflict != Constants.NOT_FOUND) {
+            System.out.println(Date.ofEpochDay(series.epochDay(conflict)) + ": The event is already on the calendar.");
+            metrics.count(Outcome.CONFLICT);
+            return;
         }
-        if (date.getYear() > todayDate.getYear() + 1) {
-            System.out.println(date + ": Event date must be within 6 months!");
-            return false;
+        if (log != null) {
+            try {
+                log.logSeries(series);
+            } catch (IOException e) {
+                System.out.println("Cannot write to the event log!");
+            }
         }
-        return true;
+        System.out.println("Event series of " + weeks + " weeks added to the calendar.");
+        metrics.count(Outcome.ADDED);
     }
 
     /**
-     * Retrieves an enum value from a string input.
+     * Removes an event from the calendar based on event details.
      *
-     * @param <T>       the type of the enum
-     * @param input     the string input to convert to enum
-     * @param enumClass the class of the enum
-     * @return the enum value corresponding to the input string, or null if not
-     *         found
+     * @param tokenizer the tokenizer containing the event details for removal
+     * @return if date not removed
      */
-    private static <T extends Enum<T>> T getEnumValue(String input, Class<T> enumClass) {
-        for (T enumValue : enumClass.getEnumConstants()) {
-            if (enumValue.name().equals(input)) {
-                return enumValue;
+    private void removeEvent(LineTokenizer tokenizer) {
+        try {
+            Event removeEvent = parser.parseBooking(tokenizer);
+            if (removeEvent == null) {
+                metrics.count(parser.getRejection());
+                return;
+            }
+
+            // Remove the event from event calendar
+            boolean removed = eventCalendar.remove(removeEvent);
+            if (removed) {
+                logChange(removeEvent, false);
+                System.out.println("Event has been removed from the calendar!");
+                metrics.count(Outcome.REMOVED);
+            } else {
+                System.out.println("Cannot remove; event is not in the calendar!");
+                metrics.count(Outcome.NOT_BOOKED);
             }
+        } catch (Exception e) {
+            System.out.println("Error parsing event details for removal.");
+            metrics.count(Outcome.PARSE_ERROR);
         }
-        return null;
+    }
+
+    /**
+     * Checks if the new event conflicts with existing events in the calendar.
+     * An event conflicts when its time, from the start of its timeslot for its
+     * duration, overlaps another event at the same location.
+     *
+     * @param newEvent      the new event to check for conflicts
+     * @param eventCalendar the calendar to check the new event against
+     * @return true if there is a conflict, false otherwise
+     */
+    static boolean conflict(Event newEvent, BookingCalendar eventCalendar) {
+        return eventCalendar.overlaps(newEvent);
     }
 }
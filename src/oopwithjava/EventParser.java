@@ -0,0 +1,207 @@
+package oopwithjava;
+
+import java.io.PrintStream;
+import java.util.function.Predicate;
+
+/**
+ * Parses and validates the event details of the A and R commands.
+ * Every rejected detail is reported on the output stream with the same
+ * message the Event Organizer has always printed, and kept as the outcome of
+ * the last rejection.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class EventParser {
+    static final EnumLookup<Timeslot> TIMESLOTS = new EnumLookup<>(Timeslot.class, true);
+    static final EnumLookup<Location> LOCATIONS = new EnumLookup<>(Location.class, true);
+    static final EnumLookup<Department> DEPARTMENTS = new EnumLookup<>(Department.class, true);
+    static final EnumLookup<Campus> CAMPUSES = new EnumLookup<>(Campus.class, true);
+
+    private final PrintStream out;
+    private final BookingWindow window;
+    private final Contact[] contacts; // the latest contact of each department, by ordinal
+    private Outcome rejection;
+
+    /**
+     * Initializes a parser that reports invalid details to the given stream and
+     * checks dates against the system clock.
+     *
+     * @param out the stream for validation messages
+     */
+    public EventParser(PrintStream out) {
+        this(out, new BookingWindow());
+    }
+
+    /**
+     * Initializes a parser that reports invalid details to the given stream.
+     *
+     * @param out    the stream for validation messages
+     * @param window the range of dates that can be booked
+     */
+    public EventParser(PrintStream out, BookingWindow window) {
+        this.out = out;
+        this.window = window;
+        this.contacts = new Contact[Department.values().length];
+    }
+
+    /**
+     * Parses the date, timeslot, location, contact and duration of a new event.
+     * Conflicts and the duration range are left to the caller, so that they are
+     * reported in the usual order. Every detail is decoded in place from the
+     * line, and the contact of the previous event of the department is reused
+     * if the email is the same, so a valid line allocates only the event.
+     *
+     * @param tokenizer the tokenizer containing the event details
+     * @return the parsed event, or null if a detail is invalid
+     */
+    public Event parseEvent(LineTokenizer tokenizer) {
+        Date newDate = tokenizer.nextDate();
+        if (!dateCheck(newDate))
+            return null;
+        Timeslot newTimeslot = tokenizer.nextEnum(TIMESLOTS);
+        if (newTimeslot == null) {
+            out.println("Invalid time slot!");
+            rejection = Outcome.INVALID_TIMESLOT;
+            return null;
+        }
+        Location newLocation = tokenizer.nextEnum(LOCATIONS);
+        if (newLocation == null) {
+            out.println("Invalid location!");
+            rejection = Outcome.INVALID_LOCATION;
+            return null;
+        }
+        Department department = tokenizer.nextEnum(DEPARTMENTS);
+        tokenizer.advance();
+        if (department == null || !Contact.isValid(department, tokenizer.getLine(), tokenizer.getStart(),
+                tokenizer.getEnd())) {
+            out.println("Invalid contact information!");
+            rejection = Outcome.INVALID_CONTACT;
+            return null;
+        }
+        Contact newContact = contacts[department.ordinal()];
+        if (newContact == null || !tokenizer.tokenEquals(newContact.getEmail())) {
+            newContact = new Contact(department, tokenizer.token());
+            contacts[department.ordinal()] = newContact;
+        }
+        return new Event(newDate, newTimeslot, newLocation, newContact, tokenizer.nextInt());
+    }
+
+    /**
+     * Parses the date, timeslot and location of an existing booking.
+     *
+     * @param tokenizer the tokenizer containing the booking details
+     * @return a temporary event identifying the booking, or null if a detail is
+     *         invalid
+     */
+    public Event parseBooking(LineTokenizer tokenizer) {
+        Date removeDate = tokenizer.nextDate();
+        if (!dateCheck(removeDate))
+            return null;
+        Timeslot removeTimeslot = tokenizer.nextEnum(TIMESLOTS);
+        if (removeTimeslot == null) {
+            out.println("Invalid time slot!");
+            rejection = Outcome.INVALID_TIMESLOT;
+            return null;
+        }
+        Location removeLocation = tokenizer.nextEnum(LOCATIONS);
+        if (removeLocation == null) {
+            out.println("Invalid location!");
+            rejection = Outcome.INVALID_LOCATION;
+            return null;
+        }
+        return new Event(removeDate, removeTimeslot, removeLocation, null, 0);
+    }
+
+    /**
+     * Parses one end of a date range. Unlike event dates, range dates may lie
+     * in the past or beyond the booking window.
+     *
+     * @param tokenizer the tokenizer positioned before the date
+     * @return the date, or null if it is not a valid calendar date
+     */
+    public Date parseRangeDate(LineTokenizer tokenizer) {
+        Date date = tokenizer.nextDate();
+        if (!date.isValid()) {
+            out.println(date + ": Invalid calendar date!");
+            rejection = Outcome.INVALID_DATE;
+            return null;
+        }
+        return date;
+    }
+
+    /**
+     * Parses the optional campus or department filter of a range query.
+     *
+     * @param tokenizer the tokenizer positioned after the date range
+     * @return the filter, which passes every event if none is given, or null if
+     *         the filter is neither a campus nor a department
+     */
+    public Predicate<Event> parseFilter(LineTokenizer tokenizer) {
+        if (!tokenizer.hasMoreTokens()) {
+            return event -> true;
+        }
+        Department department = tokenizer.nextEnum(DEPARTMENTS);
+        if (department != null) {
+            return event -> event.getContact().getDepartment() == department;
+        }
+        Campus campus = CAMPUSES.find(tokenizer.getLine(), tokenizer.getStart(), tokenizer.getEnd());
+        if (campus != null) {
+            return event -> event.getLocation().getCampus() == campus;
+        }
+        out.println(tokenizer.token() + ": Invalid campus or department!");
+        return null;
+    }
+
+    /**
+     * Checks if the duration of an event is within the allowed range.
+     *
+     * @param duration the duration in minutes
+     * @return true if the duration is allowed, false otherwise
+     */
+    public boolean durationCheck(int duration) {
+        if (duration < Constants.MIN_DURATION || duration > Constants.MAX_DURATION) {
+            out.println("Event duration must be at least 30 minutes and at most 120 minutes");
+            rejection = Outcome.INVALID_DURATION;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if date is valid and within the upcoming 6 months
+     * The 6 months are checked against the cached booking window.
+     *
+     * @return true if date is valid
+     *
+     * @return false if date is invalid
+     */
+    public boolean dateCheck(Date date) {
+        if (!date.isValid()) {
+            out.println(date + ": Invalid calendar date!");
+            rejection = Outcome.INVALID_DATE;
+            return false;
+        }
+        int position = window.locate(date.toEpochDay());
+        if (position < 0) {
+            out.println(date + ": Event date must be a future date!");
+            rejection = Outcome.PAST_DATE;
+            return false;
+        }
+        if (position > 0) {
+            out.println(date + ": Event date must be within 6 months!");
+            rejection = Outcome.DATE_TOO_FAR;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the outcome of the last rejected detail.
+     *
+     * @return the reason of the last rejection, or null if nothing was rejected
+     */
+    public Outcome getRejection() {
+        return rejection;
+    }
+}
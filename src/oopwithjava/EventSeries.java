@@ -0,0 +1,178 @@
+package oopwithjava;
+
+/**
+ * Represents a weekly series of events: the same timeslot, location, contact
+ * and duration on the same weekday for a number of weeks. The series is kept
+ * as this one rule with a bit mask of its cancelled weeks, so a series has at
+ * most 64 weeks, and the event of a week is only created when it is read.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class EventSeries {
+    private static final long MINUTES_PER_WEEK = (long) Constants.DAYS_PER_WEEK * Constants.MINUTES_PER_DAY;
+
+    private final int firstDay; // epoch day of the first occurrence
+    private final Timeslot timeslot;
+    private final Location location;
+    private final Contact contact;
+    private final int duration;
+    private final int weeks;
+    private long cancelled; // bit per cancelled week
+
+    /**
+     * Initializes a series that repeats an event weekly.
+     *
+     * @param first the first occurrence
+     * @param weeks the number of occurrences, one per week
+     */
+    public EventSeries(Event first, int weeks) {
+        this.firstDay = first.getDate().toEpochDay();
+        this.timeslot = first.getTimeslot();
+        this.location = first.getLocation();
+        this.contact = first.getContact();
+        this.duration = first.getDuration();
+        this.weeks = weeks;
+    }
+
+    /**
+     * Gets the number of occurrences.
+     *
+     * @return the number of weeks
+     */
+    public int getWeeks() {
+        return weeks;
+    }
+
+    /**
+     * Cancels one occurrence.
+     *
+     * @param week the occurrence, counting from 0
+     */
+    public void cancel(int week) {
+        cancelled |= 1L << week;
+    }
+
+    /**
+     * Checks if an occurrence is cancelled.
+     *
+     * @param week the occurrence, counting from 0
+     * @return true if the week is cancelled
+     */
+    public boolean isCancelled(int week) {
+        return (cancelled & (1L << week)) != 0;
+    }
+
+    /**
+     * Finds the occurrence that books a packed booking key.
+     *
+     * @param key the packed booking key
+     * @return the occurrence, or Constants.NOT_FOUND if no week of the series
+     *         books the key
+     */
+    public int weekOf(int key) {
+        int day = OccupancyMap.epochDay(key);
+        int week = firstWeekFrom(day);
+        return week < weeks && key(week) == key ? week : Constants.NOT_FOUND;
+    }
+
+    /**
+     * Gets the location of every occurrence.
+     *
+     * @return the location
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * Gets the epoch day of an occurrence.
+     *
+     * @param week the occurrence, counting from 0
+     * @return its epoch day
+     */
+    public int epochDay(int week) {
+        return firstDay + week * Constants.DAYS_PER_WEEK;
+    }
+
+    /**
+     * Gets the packed booking key of an occurrence.
+     *
+     * @param week the occurrence, counting from 0
+     * @return its booking key
+     */
+    public int key(int week) {
+        return OccupancyMap.key(epochDay(week), timeslot, location);
+    }
+
+    /**
+     * Creates the event of an occurrence.
+     *
+     * @param week the occurrence, counting from 0
+     * @return the event
+     */
+    public Event occurrence(int week) {
+        return new Event(Date.ofEpochDay(epochDay(week)), timeslot, location, contact, duration);
+    }
+
+    /**
+     * Gets the start of an occurrence in minutes from the epoch.
+     *
+     * @param week the occurrence, counting from 0
+     * @return its start minute
+     */
+    public long start(int week) {
+        return (long) epochDay(week) * Constants.MINUTES_PER_DAY + timeslot.getStartMinutes();
+    }
+
+    /**
+     * Finds the first occurrence that ends after a minute.
+     *
+     * @param minute the minute, from the epoch
+     * @return the occurrence, or the number of weeks if there is none
+     */
+    public int firstWeekEndingAfter(long minute) {
+        long week = Math.floorDiv(minute - start(0) - duration, MINUTES_PER_WEEK) + 1;
+        return (int) Math.max(0, Math.min(week, weeks));
+    }
+
+    /**
+     * Finds the occurrence after the last one that starts before a minute.
+     *
+     * @param minute the minute, from the epoch
+     * @return one past the last occurrence starting before the minute, or 0 if
+     *         there is none
+     */
+    public int endWeekStartingBefore(long minute) {
+        long week = Math.floorDiv(minute - start(0) - 1, MINUTES_PER_WEEK) + 1;
+        return (int) Math.max(0, Math.min(week, weeks));
+    }
+
+    /**
+     * Finds the first occurrence on or after a day.
+     *
+     * @param epochDay the day
+     * @return the occurrence, or the number of weeks if there is none
+     */
+    public int firstWeekFrom(int epochDay) {
+        if (epochDay <= firstDay) {
+            return 0;
+        }
+        long week = ((long) epochDay - firstDay + Constants.DAYS_PER_WEEK - 1) / Constants.DAYS_PER_WEEK;
+        return (int) Math.min(week, weeks);
+    }
+
+    /**
+     * Finds the occurrence after the last one on or before a day.
+     *
+     * @param epochDay the day
+     * @return one past the last occurrence up to the day, or 0 if there is none
+     */
+    public int endWeekThrough(int epochDay) {
+        if (epochDay < firstDay) {
+            return 0;
+        }
+        long week = ((long) epochDay - firstDay) / Constants.DAYS_PER_WEEK + 1;
+        return (int) Math.min(week, weeks);
+    }
+}
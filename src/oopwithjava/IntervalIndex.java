@@ -0,0 +1,120 @@
+package oopwithjava;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Indexes events as time intervals, [start, start + duration) in minutes from
+ * the epoch, sorted by start within each location. Every indexed interval is
+ * at most as long as the longest one added, so the intervals that can overlap
+ * a window all start less than that length before it. An overlap check or a
+ * listing of the overlapping events is then a search of the sorted starts
+ * followed by a scan of only the events near the window, O(log n + k).
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class IntervalIndex {
+    private final List<TreeMap<Long, Event>> byLocation; // start minute -> event, by location ordinal
+    private int longest; // longest duration indexed so far
+
+    /**
+     * Initializes an empty interval index.
+     */
+    public IntervalIndex() {
+        this.byLocation = new ArrayList<>();
+        for (int i = 0; i < Location.values().length; i++) {
+            byLocation.add(new TreeMap<>());
+        }
+    }
+
+    /**
+     * Gets the start of an event in minutes from the epoch.
+     *
+     * @param event the event
+     * @return its start minute
+     */
+    public static long start(Event event) {
+        return (long) event.getDate().toEpochDay() * Constants.MINUTES_PER_DAY
+                + event.getTimeslot().getStartMinutes();
+    }
+
+    /**
+     * Gets the end of an event in minutes from the epoch.
+     *
+     * @param event the event
+     * @return the minute after its last minute
+     */
+    public static long end(Event event) {
+        return start(event) + event.getDuration();
+    }
+
+    /**
+     * Indexes an event.
+     *
+     * @param event the event
+     */
+    public void add(Event event) {
+        byLocation.get(event.getLocation().ordinal()).put(start(event), event);
+        longest = Math.max(longest, event.getDuration());
+    }
+
+    /**
+     * Removes the event starting at the date and timeslot of the given event
+     * at its location.
+     *
+     * @param event the event, or any event with the same start and location
+     */
+    public void remove(Event event) {
+        byLocation.get(event.getLocation().ordinal()).remove(start(event));
+    }
+
+    /**
+     * Gets the events that could overlap a window: those starting in it or
+     * less than the longest duration before it.
+     *
+     * @param location the location
+     * @param start    the first minute of the window
+     * @param end      the minute after the window
+     * @return the candidate events in start order
+     */
+    private Iterable<Event> candidates(Location location, long start, long end) {
+        return byLocation.get(location.ordinal()).subMap(start - longest, false, end, false).values();
+    }
+
+    /**
+     * Checks if any event at a location overlaps a window.
+     *
+     * @param location the location
+     * @param start    the first minute of the window
+     * @param end      the minute after the window
+     * @return true if an indexed event overlaps the window
+     */
+    public boolean overlaps(Location location, long start, long end) {
+        for (Event event : candidates(location, start, end)) {
+            if (end(event) > start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the events at a location that overlap a window.
+     *
+     * @param location the location
+     * @param start    the first minute of the window
+     * @param end      the minute after the window
+     * @return the overlapping events in start order
+     */
+    public List<Event> overlapping(Location location, long start, long end) {
+        ArrayList<Event> events = new ArrayList<>();
+        for (Event event : candidates(location, start, end)) {
+            if (end(event) > start) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+}
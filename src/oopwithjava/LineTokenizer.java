@@ -0,0 +1,224 @@
+package oopwithjava;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a command line into whitespace-separated tokens like
+ * StringTokenizer, but reports each token as a range of the line, so that
+ * dates, numbers and enum names are decoded in place without a string per
+ * token. One tokenizer is reset and reused for every line.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class LineTokenizer {
+    private String line;
+    private int position;
+    private int start;
+    private int end;
+
+    /**
+     * Initializes a tokenizer with no line.
+     */
+    public LineTokenizer() {
+        reset("");
+    }
+
+    /**
+     * Starts tokenizing a new line.
+     *
+     * @param line the line to tokenize
+     * @return this tokenizer
+     */
+    public LineTokenizer reset(String line) {
+        this.line = line;
+        this.position = 0;
+        this.start = 0;
+        this.end = 0;
+        return this;
+    }
+
+    /**
+     * Checks if there is another token.
+     *
+     * @return true if there is another token
+     */
+    public boolean hasMoreTokens() {
+        while (position < line.length() && isDelimiter(line.charAt(position))) {
+            position++;
+        }
+        return position < line.length();
+    }
+
+    /**
+     * Counts the tokens that are left.
+     *
+     * @return the number of tokens left
+     */
+    public int countTokens() {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = position; i < line.length(); i++) {
+            boolean delimiter = isDelimiter(line.charAt(i));
+            if (!delimiter && !inToken) {
+                count++;
+            }
+            inToken = !delimiter;
+        }
+        return count;
+    }
+
+    /**
+     * Moves to the next token, which becomes the current token.
+     *
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public void advance() {
+        if (!hasMoreTokens()) {
+            throw new NoSuchElementException();
+        }
+        start = position;
+        while (position < line.length() && !isDelimiter(line.charAt(position))) {
+            position++;
+        }
+        end = position;
+    }
+
+    /**
+     * Moves to the next token and returns it as a string.
+     *
+     * @return the next token
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public String nextToken() {
+        advance();
+        return token();
+    }
+
+    /**
+     * Moves to the next token and decodes it as a date.
+     *
+     * @return the date, which is invalid if the token is not a date
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public Date nextDate() {
+        advance();
+        return Date.parse(line, start, end);
+    }
+
+    /**
+     * Moves to the next token and looks it up as an enum constant.
+     *
+     * @param <T>    the type of the enum
+     * @param lookup the lookup table of the enum
+     * @return the constant, or null if the token names none
+     * @throws NoSuchElementException if there are no more tokens
+     */
+    public <T extends Enum<T>> T nextEnum(EnumLookup<T> lookup) {
+        advance();
+        return lookup.find(line, start, end);
+    }
+
+    /**
+     * Moves to the next token and decodes it as a decimal int, accepting the
+     * same forms as Integer.parseInt.
+     *
+     * @return the number
+     * @throws NoSuchElementException if there are no more tokens
+     * @throws NumberFormatException  if the token is not an int
+     */
+    public int nextInt() {
+        advance();
+        int i = start;
+        boolean negative = false;
+        if (line.charAt(i) == '-' || line.charAt(i) == '+') {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw invalidNumber();
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalidNumber();
+            }
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw invalidNumber();
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber();
+        }
+        return (int) value;
+    }
+
+    /**
+     * Checks if the current token is exactly the given text.
+     *
+     * @param text the text to compare with
+     * @return true if the token has the same characters
+     */
+    public boolean tokenEquals(String text) {
+        return text.length() == end - start && line.startsWith(text, start);
+    }
+
+    /**
+     * Gets the current token as a string.
+     *
+     * @return the current token
+     */
+    public String token() {
+        return line.substring(start, end);
+    }
+
+    /**
+     * Gets the line being tokenized.
+     *
+     * @return the line
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the index of the first character of the current token.
+     *
+     * @return the start of the current token
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the index after the last character of the current token.
+     *
+     * @return the end of the current token
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Builds the exception for a current token that is not an int.
+     *
+     * @return the exception to throw
+     */
+    private NumberFormatException invalidNumber() {
+        return new NumberFormatException("For input string: \"" + token() + "\"");
+    }
+
+    /**
+     * Checks if a character separates tokens, using the delimiters of
+     * StringTokenizer.
+     *
+     * @param c the character
+     * @return true if the character is a delimiter
+     */
+    private static boolean isDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
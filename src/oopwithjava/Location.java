@@ -8,23 +8,23 @@ package oopwithjava;
  * @author Altay Ozkan
  */
 public enum Location {
-    HLL114("Hill Center", "Busch"),
-    ARC103("Allison Road Classroom", "Busch"),
-    AB2225("Academic Building", "College Avenue"),
-    MU302("Murray Hall", "College Avenue"),
-    BE_AUD("Beck Hall", "Livingston"),
-    TIL232("Tillett Hall", "Livingston");
+    HLL114("Hill Center", Campus.BUSCH),
+    ARC103("Allison Road Classroom", Campus.BUSCH),
+    AB2225("Academic Building", Campus.COLLEGE_AVENUE),
+    MU302("Murray Hall", Campus.COLLEGE_AVENUE),
+    BE_AUD("Beck Hall", Campus.LIVINGSTON),
+    TIL232("Tillett Hall", Campus.LIVINGSTON);
 
     private final String building;
-    private final String campus;
+    private final Campus campus;
 
     /**
      * Constructs a Location with the given building and campus.
      *
      * @param building the name of the building
-     * @param campus   the name of the campus
+     * @param campus   the campus of the building
      */
-    private Location(String building, String campus) {
+    private Location(String building, Campus campus) {
         this.building = building;
         this.campus = campus;
     }
@@ -41,9 +41,9 @@ public enum Location {
     /**
      * Retrieves the campus of this location.
      *
-     * @return the campus name as a String
+     * @return the campus of the building
      */
-    public String getCampus() {
+    public Campus getCampus() {
         return campus;
     }
 }
@@ -0,0 +1,223 @@
+package oopwithjava;
+
+import java.util.function.Predicate;
+
+/**
+ * Represents the occupancy of every bookable (date, timeslot, location) triple
+ * as a dense bitset.
+ * Each booking is packed into a primitive int key made of the epoch day of the
+ * date, the timeslot ordinal and the location ordinal, so a day occupies a
+ * fixed run of bits and checking a booking is a single bit test.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class OccupancyMap {
+    public static final int LOCATIONS_PER_SLOT = Location.values().length;
+    public static final int SLOTS_PER_DAY = Timeslot.values().length * LOCATIONS_PER_SLOT;
+    // smallest number of days whose bits fill whole words, so rebasing shifts whole words
+    private static final int DAYS_PER_BLOCK = Long.SIZE
+            >> Math.min(Integer.numberOfTrailingZeros(Long.SIZE), Integer.numberOfTrailingZeros(SLOTS_PER_DAY));
+    private static final int WORDS_PER_BLOCK = DAYS_PER_BLOCK * SLOTS_PER_DAY / Long.SIZE;
+
+    private long[] words;
+    private int baseDay; // epoch day of the first bit, always a multiple of DAYS_PER_BLOCK
+    private int size;
+
+    /**
+     * Initializes an empty occupancy map.
+     */
+    public OccupancyMap() {
+        this.words = new long[0];
+        this.baseDay = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Packs a booking into its primitive key.
+     *
+     * @param epochDay the epoch day of the booking date
+     * @param timeslot the timeslot of the booking
+     * @param location the location of the booking
+     * @return the packed booking key
+     */
+    public static int key(int epochDay, Timeslot timeslot, Location location) {
+        return epochDay * SLOTS_PER_DAY + timeslot.ordinal() * LOCATIONS_PER_SLOT + location.ordinal();
+    }
+
+    /**
+     * Packs the date, timeslot and location of an event into its booking key.
+     *
+     * @param event the event to pack
+     * @return the packed booking key
+     */
+    public static int key(Event event) {
+        return key(event.getDate().toEpochDay(), event.getTimeslot(), event.getLocation());
+    }
+
+    /**
+     * Gets the epoch day of a packed booking key.
+     *
+     * @param key the packed booking key
+     * @return the epoch day of the booking date
+     */
+    public static int epochDay(int key) {
+        return Math.floorDiv(key, SLOTS_PER_DAY);
+    }
+
+    /**
+     * Gets the timeslot of a packed booking key.
+     *
+     * @param key the packed booking key
+     * @return the timeslot of the booking
+     */
+    public static Timeslot timeslot(int key) {
+        return Timeslot.values()[Math.floorMod(key, SLOTS_PER_DAY) / LOCATIONS_PER_SLOT];
+    }
+
+    /**
+     * Gets the location of a packed booking key.
+     *
+     * @param key the packed booking key
+     * @return the location of the booking
+     */
+    public static Location location(int key) {
+        return Location.values()[Math.floorMod(key, SLOTS_PER_DAY) % LOCATIONS_PER_SLOT];
+    }
+
+    /**
+     * Builds the search pattern of the bookings at the given locations, for
+     * use with findFree(). The pattern repeats the allowed bits of one day
+     * over a block of days that fills whole words.
+     *
+     * @param allowed the test a location must pass to be searched
+     * @return the search pattern, one block of words long
+     */
+    public static long[] pattern(Predicate<Location> allowed) {
+        Location[] locations = Location.values();
+        long[] pattern = new long[WORDS_PER_BLOCK];
+        for (int bit = 0; bit < WORDS_PER_BLOCK * Long.SIZE; bit++) {
+            if (allowed.test(locations[bit % SLOTS_PER_DAY % LOCATIONS_PER_SLOT])) {
+                pattern[bit >>> 6] |= 1L << bit;
+            }
+        }
+        return pattern;
+    }
+
+    /**
+     * Collects the earliest free bookings in a range of keys, a whole word of
+     * bookings at a time. Days the bitset does not cover are free.
+     *
+     * @param fromKey the first key to search
+     * @param toKey   the key after the last key to search
+     * @param pattern the locations to search, built by pattern()
+     * @param found   receives the free keys in ascending order
+     * @return the number of free keys found, at most found.length
+     */
+    public int findFree(int fromKey, int toKey, long[] pattern, int[] found) {
+        long base = (long) baseDay * SLOTS_PER_DAY;
+        long bit = fromKey - base;
+        long end = toKey - base;
+        int count = 0;
+        while (bit < end && count < found.length) {
+            long word = Math.floorDiv(bit, Long.SIZE);
+            long wordStart = word * Long.SIZE;
+            long occupied = word >= 0 && word < words.length ? words[(int) word] : 0;
+            long free = ~occupied & pattern[Math.floorMod(word, WORDS_PER_BLOCK)] & (-1L << (bit - wordStart));
+            if (end - wordStart < Long.SIZE) {
+                free &= (1L << (end - wordStart)) - 1;
+            }
+            while (free != 0 && count < found.length) {
+                found[count++] = (int) (base + wordStart + Long.numberOfTrailingZeros(free));
+                free &= free - 1;
+            }
+            bit = wordStart + Long.SIZE;
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the booking with the given key is occupied.
+     *
+     * @param key the packed booking key
+     * @return true if the booking is occupied, false otherwise
+     */
+    public boolean contains(int key) {
+        int bit = key - baseDay * SLOTS_PER_DAY;
+        if (bit < 0 || bit >= words.length * Long.SIZE) {
+            return false;
+        }
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Marks the booking with the given key as occupied.
+     *
+     * @param key the packed booking key
+     * @return true if the booking was free, false if it was already occupied
+     */
+    public boolean add(int key) {
+        ensureCapacity(Math.floorDiv(key, SLOTS_PER_DAY));
+        int bit = key - baseDay * SLOTS_PER_DAY;
+        long mask = 1L << bit;
+        if ((words[bit >>> 6] & mask) != 0) {
+            return false;
+        }
+        words[bit >>> 6] |= mask;
+        size++;
+        return true;
+    }
+
+    /**
+     * Marks the booking with the given key as free.
+     *
+     * @param key the packed booking key
+     * @return true if the booking was occupied, false otherwise
+     */
+    public boolean remove(int key) {
+        if (!contains(key)) {
+            return false;
+        }
+        int bit = key - baseDay * SLOTS_PER_DAY;
+        words[bit >>> 6] &= ~(1L << bit);
+        size--;
+        return true;
+    }
+
+    /**
+     * Gets the number of occupied bookings.
+     *
+     * @return the number of occupied bookings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Grows or rebases the bitset so that the given day is covered.
+     *
+     * @param epochDay the epoch day that must be addressable
+     */
+    private void ensureCapacity(int epochDay) {
+        int blockDay = Math.floorDiv(epochDay, DAYS_PER_BLOCK) * DAYS_PER_BLOCK;
+        if (words.length == 0) {
+            baseDay = blockDay;
+            words = new long[WORDS_PER_BLOCK];
+            return;
+        }
+        if (blockDay < baseDay) {
+            int shift = (baseDay - blockDay) / DAYS_PER_BLOCK * WORDS_PER_BLOCK;
+            long[] newWords = new long[Math.max(words.length * 2, words.length + shift)];
+            System.arraycopy(words, 0, newWords, newWords.length - words.length, words.length);
+            baseDay -= (newWords.length - words.length) / WORDS_PER_BLOCK * DAYS_PER_BLOCK;
+            words = newWords;
+            return;
+        }
+        int needed = ((blockDay - baseDay) / DAYS_PER_BLOCK + 1) * WORDS_PER_BLOCK;
+        if (needed > words.length) {
+            long[] newWords = new long[Math.max(words.length * 2, needed)];
+            System.arraycopy(words, 0, newWords, 0, words.length);
+            words = newWords;
+        }
+    }
+}
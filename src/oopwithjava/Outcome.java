@@ -0,0 +1,25 @@
+package oopwithjava;
+
+/**
+ * Represents the result of a command that changes the calendar, as counted by
+ * the command metrics.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public enum Outcome {
+    ADDED,
+    REMOVED,
+    CONFLICT,
+    NOT_BOOKED,
+    INVALID_DATE,
+    PAST_DATE,
+    DATE_TOO_FAR,
+    INVALID_TIMESLOT,
+    INVALID_LOCATION,
+    INVALID_CONTACT,
+    INVALID_DURATION,
+    INVALID_WEEKS,
+    PARSE_ERROR,
+    INVALID_COMMAND
+}
@@ -0,0 +1,443 @@
+package oopwithjava;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Adds weekly series of events to another calendar. Each series is stored as
+ * one rule, listed under its location, and its occurrences are marked in an
+ * occupancy bitset, so memory grows with the number of series, not with the
+ * events they stand for. An overlap check works out, for each series at the
+ * location, the few weeks whose time could overlap. The events of a series
+ * are created only when a report or iteration reaches them; a date range
+ * report only creates the occurrences inside the range and merges them with
+ * the single events in date order. Removing an occurrence cancels that week of
+ * its series. The statistics of the occurrences are kept apart and added to
+ * those of the single events. While there are no series, every call goes
+ * straight to the calendar underneath.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class RecurringCalendar implements BookingCalendar {
+    private final BookingCalendar calendar;
+    private final ArrayList<EventSeries> series;
+    private final List<ArrayList<EventSeries>> byLocation; // the series, by location ordinal
+    private final OccupancyMap occurrences; // the bookings of the series weeks not cancelled
+    private final BookingStats seriesStats; // statistics of the series weeks not cancelled
+    private long seriesVersion; // series added and occurrences cancelled
+
+    /**
+     * Initializes the series of a calendar, starting with none.
+     *
+     * @param calendar the calendar of the single events
+     */
+    public RecurringCalendar(BookingCalendar calendar) {
+        this.calendar = calendar;
+        this.series = new ArrayList<>();
+        this.byLocation = new ArrayList<>();
+        for (int i = 0; i < Location.values().length; i++) {
+            byLocation.add(new ArrayList<>());
+        }
+        this.occurrences = new OccupancyMap();
+        this.seriesStats = new BookingStats();
+    }
+
+    /**
+     * Adds a weekly series, unless one of its occurrences overlaps a single
+     * event or an occurrence of another series, by the same rule as the A
+     * command. Every occurrence is checked before any is booked.
+     *
+     * @param rule the series to add
+     * @return the first overlapping occurrence, or Constants.NOT_FOUND if the
+     *         series was added
+     */
+    public int addSeries(EventSeries rule) {
+        for (int week = 0; week < rule.getWeeks(); week++) {
+            if (overlaps(rule.occurrence(week))) {
+                return week;
+            }
+        }
+        for (int week = 0; week < rule.getWeeks(); week++) {
+            occurrences.add(rule.key(week));
+            seriesStats.add(rule.occurrence(week));
+        }
+        series.add(rule);
+        byLocation.get(rule.getLocation().ordinal()).add(rule);
+        seriesVersion++;
+        return Constants.NOT_FOUND;
+    }
+
+    /**
+     * Adds a single event, unless its booking is taken by an event or a series.
+     *
+     * @param event the event to be added
+     * @return true if the event was added, false if it conflicts with a booking
+     */
+    @Override
+    public boolean add(Event event) {
+        return !occurrences.contains(OccupancyMap.key(event)) && calendar.add(event);
+    }
+
+    /**
+     * Adds a batch of single events, skipping every event whose booking is
+     * taken. While there are no series, the whole batch goes to the calendar
+     * underneath at once.
+     *
+     * @param batch the events to be added
+     * @return the number of events added
+     */
+    @Override
+    public int addAll(Event[] batch) {
+        if (series.isEmpty()) {
+            return calendar.addAll(batch);
+        }
+        return BookingCalendar.super.addAll(batch);
+    }
+
+    /**
+     * Removes the event booked on the date, timeslot and location of the given
+     * event. If a series occurrence holds the booking, that week of the series
+     * is cancelled.
+     *
+     * @param event the event to be removed
+     * @return true if an event or occurrence was removed, false if the booking
+     *         was free
+     */
+    @Override
+    public boolean remove(Event event) {
+        int key = OccupancyMap.key(event);
+        if (!occurrences.remove(key)) {
+            return calendar.remove(event);
+        }
+        for (EventSeries rule : byLocation.get(event.getLocation().ordinal())) {
+            int week = rule.weekOf(key);
+            if (week != Constants.NOT_FOUND && !rule.isCancelled(week)) {
+                rule.cancel(week);
+                seriesStats.remove(rule.occurrence(week));
+                break;
+            }
+        }
+        if (occurrences.size() == 0) {
+            series.clear();
+            for (ArrayList<EventSeries> rules : byLocation) {
+                rules.clear();
+            }
+        }
+        seriesVersion++;
+        return true;
+    }
+
+    /**
+     * Checks if the date, timeslot and location of the given event are booked
+     * by an event or a series.
+     *
+     * @param event the event to check for
+     * @return true if the booking exists, false otherwise
+     */
+    @Override
+    public boolean contains(Event event) {
+        return occurrences.contains(OccupancyMap.key(event)) || calendar.contains(event);
+    }
+
+    /**
+     * Checks if the time of the given event overlaps a single event or a series
+     * occurrence at the same location. For each series at the location, only
+     * the weeks that start before the event ends and end after it starts are
+     * looked at.
+     *
+     * @param event the event to check for
+     * @return true if the event overlaps a booking, false otherwise
+     */
+    @Override
+    public boolean overlaps(Event event) {
+        long start = IntervalIndex.start(event);
+        long end = start + event.getDuration();
+        for (EventSeries rule : byLocation.get(event.getLocation().ordinal())) {
+            for (int week = rule.firstWeekEndingAfter(start); week < rule.endWeekStartingBefore(end); week++) {
+                if (!rule.isCancelled(week)) {
+                    return true;
+                }
+            }
+        }
+        return calendar.overlaps(event);
+    }
+
+    /**
+     * Lists the single events and series occurrences at a location that
+     * overlap a span of time. The occurrences are found from the weeks of each
+     * series at the location, and merged with the single events by start.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @return the overlapping events in start order
+     */
+    @Override
+    public List<Event> overlapping(Location location, long start, long end) {
+        List<Event> found = new ArrayList<>(calendar.overlapping(location, start, end));
+        int singles = found.size();
+        for (EventSeries rule : byLocation.get(location.ordinal())) {
+            for (int week = rule.firstWeekEndingAfter(start); week < rule.endWeekStartingBefore(end); week++) {
+                if (!rule.isCancelled(week)) {
+                    found.add(rule.occurrence(week));
+                }
+            }
+        }
+        if (found.size() > singles) {
+            found.sort(Comparator.comparingLong(IntervalIndex::start));
+        }
+        return found;
+    }
+
+    /**
+     * Collects the single events followed by the occurrences of every series
+     * in the order the series were added.
+     *
+     * @return the events
+     */
+    private Event[] toArray() {
+        Event[] events = new Event[calendar.size() + occurrences.size()];
+        int count = 0;
+        for (Event event : calendar) {
+            events[count++] = event;
+        }
+        for (EventSeries rule : series) {
+            for (int week = 0; week < rule.getWeeks(); week++) {
+                if (!rule.isCancelled(week)) {
+                    events[count++] = rule.occurrence(week);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Prints all single events in insertion order, followed by the occurrences
+     * of each series.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void print(ReportWriter report) {
+        if (series.isEmpty()) {
+            calendar.print(report);
+            return;
+        }
+        Event[] events = toArray();
+        report.writeReport(ReportWriter.HEADER, events.length, i -> events[i]);
+    }
+
+    /**
+     * Prints all events and occurrences by date.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDate(ReportWriter report) {
+        if (series.isEmpty()) {
+            calendar.printByDate(report);
+            return;
+        }
+        Event[] events = toArray();
+        Arrays.sort(events, EventCalendar.BY_DATE);
+        report.writeReport(ReportWriter.HEADER_BY_DATE, events.length, i -> events[i]);
+    }
+
+    /**
+     * Prints the events from one date through another by date. Only the
+     * occurrences inside the range are created.
+     *
+     * @param from   the first date of the range
+     * @param to     the last date of the range
+     * @param filter the test an event must pass to be printed
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDateRange(Date from, Date to, Predicate<Event> filter, ReportWriter report) {
+        if (series.isEmpty()) {
+            calendar.printByDateRange(from, to, filter, report);
+            return;
+        }
+        report.writeReport(ReportWriter.rangeHeader(from, to), ReportWriter.EMPTY_RANGE,
+                Arrays.asList(toArray(from, to)), filter);
+    }
+
+    /**
+     * Copies the events from one date through another by date. The single
+     * events come from the ordered range of the calendar underneath, and the
+     * occurrences of each series in the range already follow in date order,
+     * so the runs are merged by their booking keys without sorting.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the events and occurrences in the range by date
+     */
+    @Override
+    public Event[] toArray(Date from, Date to) {
+        Event[] singles = calendar.toArray(from, to);
+        if (series.isEmpty()) {
+            return singles;
+        }
+        int fromDay = from.toEpochDay();
+        int toDay = to.toEpochDay();
+        // the series, next week and end week of every series with weeks left in the range
+        PriorityQueue<int[]> heads = new PriorityQueue<>(
+                Comparator.comparingInt((int[] head) -> series.get(head[0]).key(head[1])));
+        for (int i = 0; i < series.size(); i++) {
+            EventSeries rule = series.get(i);
+            int endWeek = rule.endWeekThrough(toDay);
+            int week = nextWeek(rule, rule.firstWeekFrom(fromDay), endWeek);
+            if (week < endWeek) {
+                heads.add(new int[] {i, week, endWeek});
+            }
+        }
+        ArrayList<Event> events = new ArrayList<>(singles.length);
+        int next = 0;
+        while (next < singles.length || !heads.isEmpty()) {
+            int[] head = heads.peek();
+            if (head == null || (next < singles.length
+                    && OccupancyMap.key(singles[next]) < series.get(head[0]).key(head[1]))) {
+                events.add(singles[next++]);
+                continue;
+            }
+            heads.poll();
+            EventSeries rule = series.get(head[0]);
+            events.add(rule.occurrence(head[1]));
+            head[1] = nextWeek(rule, head[1] + 1, head[2]);
+            if (head[1] < head[2]) {
+                heads.add(head);
+            }
+        }
+        return events.toArray(new Event[0]);
+    }
+
+    /**
+     * Finds the first week of a series from a given week on that is not
+     * cancelled.
+     *
+     * @param rule    the series
+     * @param week    the week to start from
+     * @param endWeek the week to stop at
+     * @return the week, or endWeek if every week before it is cancelled
+     */
+    private static int nextWeek(EventSeries rule, int week, int endWeek) {
+        while (week < endWeek && rule.isCancelled(week)) {
+            week++;
+        }
+        return week;
+    }
+
+    /**
+     * Finds the earliest free bookings from one day through another, leaving
+     * out the bookings of the series.
+     *
+     * @param fromDay the epoch day of the first date to search
+     * @param toDay   the epoch day of the last date to search
+     * @param campus  the campus to search, or null for every campus
+     * @param found   receives the packed keys of the free bookings in order
+     * @return the number of free bookings found
+     */
+    @Override
+    public int findFree(int fromDay, int toDay, Campus campus, int[] found) {
+        if (series.isEmpty()) {
+            return calendar.findFree(fromDay, toDay, campus, found);
+        }
+        int[] candidates = new int[found.length + occurrences.size()];
+        int located = calendar.findFree(fromDay, toDay, campus, candidates);
+        int count = 0;
+        for (int i = 0; i < located && count < found.length; i++) {
+            if (!occurrences.contains(candidates[i])) {
+                found[count++] = candidates[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Prints all events and occurrences by campus and building.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByCampus(ReportWriter report) {
+        if (series.isEmpty()) {
+            calendar.printByCampus(report);
+            return;
+        }
+        Event[] events = toArray();
+        Arrays.sort(events, EventCalendar.BY_CAMPUS);
+        report.writeReport(ReportWriter.HEADER_BY_CAMPUS, events.length, i -> events[i]);
+    }
+
+    /**
+     * Prints all events and occurrences by department.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDepartment(ReportWriter report) {
+        if (series.isEmpty()) {
+            calendar.printByDepartment(report);
+            return;
+        }
+        Event[] events = toArray();
+        Arrays.sort(events, EventCalendar.BY_DEPARTMENT);
+        report.writeReport(ReportWriter.HEADER_BY_DEPARTMENT, events.length, i -> events[i]);
+    }
+
+    /**
+     * Gets the number of single events and series occurrences.
+     *
+     * @return the number of events
+     */
+    @Override
+    public int size() {
+        return calendar.size() + occurrences.size();
+    }
+
+    /**
+     * Gets the modification version of the single events and the series. Both
+     * counts only grow, so their sum changes on every add and remove.
+     *
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return calendar.getVersion() + seriesVersion;
+    }
+
+    /**
+     * Gets the booking statistics of the events and occurrences. With series,
+     * the statistics kept for the occurrences are added to those of the single
+     * events, without visiting any event.
+     *
+     * @return the statistics of the events
+     */
+    @Override
+    public BookingStats getStats() {
+        if (series.isEmpty()) {
+            return calendar.getStats();
+        }
+        BookingStats stats = new BookingStats();
+        stats.addAll(calendar.getStats());
+        stats.addAll(seriesStats);
+        return stats;
+    }
+
+    /**
+     * Returns an iterator over the single events in insertion order, followed
+     * by the occurrences of each series.
+     *
+     * @return an iterator over the events
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return series.isEmpty() ? calendar.iterator() : Arrays.asList(toArray()).iterator();
+    }
+}
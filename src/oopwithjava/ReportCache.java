@@ -0,0 +1,115 @@
+package oopwithjava;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the rendered output of recent reports and queries, each with the
+ * calendar version it was rendered at. A report is looked up by its command
+ * and parameters, and only a copy of the current version is returned, so
+ * repeating a report of an unchanged calendar writes out the stored text
+ * instead of sorting and rendering the events again. The least recently used
+ * reports are evicted once there are too many or their text is too long in
+ * total.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class ReportCache {
+    private final LinkedHashMap<String, Entry> entries; // command and parameters -> report, in access order
+    private final int maxEntries;
+    private final long maxChars;
+    private long chars; // total length of the cached reports
+
+    /**
+     * A rendered report and the calendar version it shows.
+     */
+    private static class Entry {
+        private final long version;
+        private final String text;
+
+        /**
+         * Initializes an entry.
+         *
+         * @param version the calendar version the report was rendered at
+         * @param text    the rendered report
+         */
+        private Entry(long version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Initializes an empty report cache with the default bounds.
+     */
+    public ReportCache() {
+        this(Constants.REPORT_CACHE_ENTRIES, Constants.REPORT_CACHE_CHARS);
+    }
+
+    /**
+     * Initializes an empty report cache.
+     *
+     * @param maxEntries the largest number of reports kept
+     * @param maxChars   the largest total length of the reports kept
+     */
+    public ReportCache(int maxEntries, long maxChars) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Gets a report rendered at the given calendar version.
+     *
+     * @param key     the command and its parameters
+     * @param version the current calendar version
+     * @return the rendered report, or null if none is cached for this version
+     */
+    public String get(String key, long version) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.version == version ? entry.text : null;
+    }
+
+    /**
+     * Stores a rendered report, replacing any older copy, and evicts the least
+     * recently used reports beyond the bounds. A report longer than the whole
+     * cache is not stored.
+     *
+     * @param key     the command and its parameters
+     * @param version the calendar version the report was rendered at
+     * @param text    the rendered report, or null if it was not captured
+     */
+    public void put(String key, long version, String text) {
+        if (text == null || text.length() > maxChars) {
+            return;
+        }
+        Entry replaced = entries.put(key, new Entry(version, text));
+        if (replaced != null) {
+            chars -= replaced.text.length();
+        }
+        chars += text.length();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || chars > maxChars) {
+            chars -= eldest.next().text.length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Removes every report, as when the calendar is replaced.
+     */
+    public void clear() {
+        entries.clear();
+        chars = 0;
+    }
+
+    /**
+     * Gets the number of reports kept.
+     *
+     * @return the number of reports
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,294 @@
+package oopwithjava;
+
+import java.io.PrintStream;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Collects the lines of a calendar report in one reusable buffer and writes
+ * them to the output stream in a single flush.
+ * Events are rendered straight into the buffer, without building intermediate
+ * strings per event. Reports of many events are rendered in parallel, a chunk
+ * of events per task, and the chunks are written out in order.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class ReportWriter {
+    public static final String EMPTY_CALENDAR = "Event calendar is empty!";
+    public static final String HEADER = "* Event calendar *";
+    public static final String HEADER_BY_DATE = "* Event calendar by event date and start time *";
+    public static final String HEADER_BY_CAMPUS = "* Event calendar by campus and building *";
+    public static final String HEADER_BY_DEPARTMENT = "* Event calendar by department *";
+    public static final String FOOTER = "* end of event calendar *";
+    public static final String EMPTY_RANGE = "No events in the date range.";
+    public static final String NO_FREE_BOOKINGS = "No free bookings in the date range.";
+    public static final String FREE_FOOTER = "* end of free bookings *";
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final int MAX_BUFFERED_CHARS = 1 << 20;
+    private static final int CHUNK_EVENTS = 4096;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final PrintStream out;
+    private final StringBuilder buffer;
+    private int parallelThreshold;
+    private StringBuilder[] chunks; // one buffer per chunk of a parallel pass
+    private StringBuilder capture; // copy of the output while it is captured, or null
+    private int captureLimit;
+
+    /**
+     * Initializes a report writer for the given output stream.
+     *
+     * @param out the stream the reports are flushed to
+     */
+    public ReportWriter(PrintStream out) {
+        this.out = out;
+        this.buffer = new StringBuilder(INITIAL_BUFFER_SIZE);
+        this.parallelThreshold = Constants.PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Sets the number of events from which reports are sorted and rendered in
+     * parallel.
+     *
+     * @param parallelThreshold the smallest number of events to process in
+     *                          parallel
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    /**
+     * Checks if a report of the given number of events should be sorted and
+     * rendered in parallel. A single processor always works sequentially.
+     *
+     * @param count the number of events in the report
+     * @return true if the count reaches the parallel threshold and there are
+     *         processors to share the work
+     */
+    public boolean isParallel(int count) {
+        return count >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    /**
+     * Appends a line of text to the report.
+     *
+     * @param line the line to append
+     * @return this report writer
+     */
+    public ReportWriter appendLine(String line) {
+        buffer.append(line).append(System.lineSeparator());
+        spill();
+        return this;
+    }
+
+    /**
+     * Appends the textual representation of an event as a line of the report.
+     *
+     * @param event the event to append
+     * @return this report writer
+     */
+    public ReportWriter appendEvent(Event event) {
+        event.appendTo(buffer).append(System.lineSeparator());
+        spill();
+        return this;
+    }
+
+    /**
+     * Renders a whole calendar report and flushes it. An empty calendar is
+     * reported as such instead of printing the header and footer.
+     *
+     * @param header the title line of the report
+     * @param events the events to list, in report order
+     */
+    public void writeReport(String header, Iterable<Event> events) {
+        writeReport(header, EMPTY_CALENDAR, events, event -> true);
+    }
+
+    /**
+     * Renders the events that pass a filter as a report and flushes it. If no
+     * event passes, only the empty line is written.
+     *
+     * @param header the title line of the report
+     * @param empty  the line written instead if no event passes the filter
+     * @param events the events to consider, in report order
+     * @param filter the test an event must pass to be listed
+     */
+    public void writeReport(String header, String empty, Iterable<Event> events, Predicate<Event> filter) {
+        boolean listed = false;
+        for (Event event : events) {
+            if (filter.test(event)) {
+                if (!listed) {
+                    appendLine(header);
+                    listed = true;
+                }
+                appendEvent(event);
+            }
+        }
+        appendLine(listed ? FOOTER : empty);
+        flush();
+    }
+
+    /**
+     * Renders a whole calendar report from events held in order, and flushes
+     * it. From the parallel threshold on, chunks of events are rendered into
+     * separate buffers by the common fork-join pool, a bounded number of chunks
+     * at a time, and written out in order.
+     *
+     * @param header  the title line of the report
+     * @param count   the number of events
+     * @param eventAt gets the event at a position of the report
+     */
+    public void writeReport(String header, int count, IntFunction<Event> eventAt) {
+        if (count == 0) {
+            appendLine(EMPTY_CALENDAR);
+        } else if (!isParallel(count)) {
+            appendLine(header);
+            for (int i = 0; i < count; i++) {
+                appendEvent(eventAt.apply(i));
+            }
+            appendLine(FOOTER);
+        } else {
+            appendLine(header);
+            emit(buffer);
+            buffer.setLength(0);
+            int wave = Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD;
+            if (chunks == null || chunks.length != wave) {
+                chunks = new StringBuilder[wave];
+                for (int i = 0; i < wave; i++) {
+                    chunks[i] = new StringBuilder(INITIAL_BUFFER_SIZE);
+                }
+            }
+            for (int first = 0; first < count; first += wave * CHUNK_EVENTS) {
+                int start = first;
+                IntStream.range(0, wave).parallel().forEach(chunk -> {
+                    StringBuilder part = chunks[chunk];
+                    part.setLength(0);
+                    int from = (int) Math.min(count, start + (long) chunk * CHUNK_EVENTS);
+                    int to = (int) Math.min(count, from + (long) CHUNK_EVENTS);
+                    for (int i = from; i < to; i++) {
+                        eventAt.apply(i).appendTo(part).append(System.lineSeparator());
+                    }
+                });
+                for (StringBuilder part : chunks) {
+                    emit(part);
+                }
+            }
+            appendLine(FOOTER);
+        }
+        flush();
+    }
+
+    /**
+     * Renders a list of free bookings, each as the date, timeslot and location
+     * to give the A command, and flushes it.
+     *
+     * @param from  the first date searched
+     * @param to    the last date searched
+     * @param keys  the packed keys of the free bookings
+     * @param count the number of keys to list
+     */
+    public void writeFreeBookings(Date from, Date to, int[] keys, int count) {
+        if (count == 0) {
+            appendLine(NO_FREE_BOOKINGS);
+        } else {
+            appendLine("* Free bookings from " + from + " to " + to + " *");
+            for (int i = 0; i < count; i++) {
+                Location location = OccupancyMap.location(keys[i]);
+                Date.ofEpochDay(OccupancyMap.epochDay(keys[i])).appendTo(buffer).append(' ')
+                        .append(OccupancyMap.timeslot(keys[i]).name()).append(' ').append(location.name())
+                        .append(" (").append(location.getBuilding()).append(", ")
+                        .append(location.getCampus().getName()).append(')').append(System.lineSeparator());
+                spill();
+            }
+            appendLine(FREE_FOOTER);
+        }
+        flush();
+    }
+
+    /**
+     * Builds the title line of a date range report.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the title line
+     */
+    public static String rangeHeader(Date from, Date to) {
+        return "* Event calendar from " + from + " to " + to + " *";
+    }
+
+    /**
+     * Starts keeping a copy of everything written to the output stream, so a
+     * report can be cached as it is rendered. Copying stops if the output
+     * grows beyond the limit.
+     *
+     * @param limit the largest number of characters to copy
+     */
+    public void startCapture(int limit) {
+        capture = new StringBuilder(INITIAL_BUFFER_SIZE);
+        captureLimit = limit;
+    }
+
+    /**
+     * Stops copying the output.
+     *
+     * @return everything written since the capture started, or null if it
+     *         grew beyond the limit
+     */
+    public String endCapture() {
+        String text = capture == null ? null : capture.toString();
+        capture = null;
+        return text;
+    }
+
+    /**
+     * Writes a report rendered earlier to the output stream and flushes it.
+     *
+     * @param text the rendered report
+     */
+    public void writeRendered(String text) {
+        flush();
+        out.append(text);
+        out.flush();
+    }
+
+    /**
+     * Writes text to the output stream, copying it if the output is captured.
+     *
+     * @param text the text to write
+     */
+    private void emit(CharSequence text) {
+        out.append(text);
+        if (capture != null) {
+            if (capture.length() + text.length() > captureLimit) {
+                capture = null;
+            } else {
+                capture.append(text);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered report to the output stream and empties the buffer,
+     * keeping its capacity for the next report.
+     */
+    public void flush() {
+        if (buffer.length() > 0) {
+            emit(buffer);
+            buffer.setLength(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes out very large reports part way through, so the buffer stays
+     * bounded.
+     */
+    private void spill() {
+        if (buffer.length() >= MAX_BUFFERED_CHARS) {
+            emit(buffer);
+            buffer.setLength(0);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package oopwithjava;
 
+import java.io.IOException;
+import java.util.List;
+
 /**
  * The entry point for running the Event Organizer application.
  * It creates an instance of EventOrganizer and runs it.
@@ -8,14 +11,103 @@ package oopwithjava;
  * @author Altay Ozkan
  */
 public class RunProject1 {
+    private static final int DEFAULT_SYNC_EVERY = 64;
+    private static final String COLUMNAR = "columnar";
+    private static final String OBJECTS = "objects";
+    private static final String SHARDED = "sharded";
+    // options of the organizer that the server does not support
+    private static final List<String> ORGANIZER_OPTIONS = List.of("--batch", "--wal", "--wal-sync",
+            "--parallel-threshold");
 
     /**
      * The main method that is executed when the program is run.
-     * It creates a new EventOrganizer object.
+     * It creates a new EventOrganizer object. The options are:
+     * "--batch file" reads the commands from the file instead of the console,
+     * "--server port" serves the commands to TCP clients on localhost,
+     * "--wal file" replays and keeps a write-ahead log of the calendar, and
+     * "--wal-sync n" forces the log to disk once every n records,
+     * "--today mm/dd/yyyy" checks event dates as if today were that date, and
+     * "--storage columnar" stores the events column by column instead of as
+     * event objects, "--storage sharded" gives the server one partition per
+     * campus, and "--parallel-threshold n" prints calendars of at least
+     * n events in parallel. The batch, log and parallel options only apply to
+     * the organizer and are rejected with "--server".
      *
      * @param args command-line arguments
+     * @throws IOException if the server port cannot be bound
      */
-    public static void main(String[] args) {
-        new EventOrganizer().run();
+    public static void main(String[] args) throws IOException {
+        String batchFile = null;
+        String logFile = null;
+        int syncEvery = DEFAULT_SYNC_EVERY;
+        int serverPort = Constants.NOT_FOUND;
+        BookingWindow window = null;
+        String storage = OBJECTS;
+        int parallelThreshold = Constants.PARALLEL_THRESHOLD;
+        String organizerOption = null; // the first option the server does not support
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (organizerOption == null && ORGANIZER_OPTIONS.contains(args[i])) {
+                organizerOption = args[i];
+            }
+            try {
+                switch (args[i]) {
+                    case "--batch" -> batchFile = args[i + 1];
+                    case "--server" -> serverPort = Integer.parseInt(args[i + 1]);
+                    case "--wal" -> logFile = args[i + 1];
+                    case "--wal-sync" -> syncEvery = Integer.parseInt(args[i + 1]);
+                    case "--parallel-threshold" -> parallelThreshold = Integer.parseInt(args[i + 1]);
+                    case "--today" -> {
+                        Date today = Date.parse(args[i + 1]);
+                        if (!today.isValid()) {
+                            System.out.println(args[i + 1] + ": Invalid calendar date!");
+                            return;
+                        }
+                        window = BookingWindow.startingOn(today);
+                    }
+                    case "--storage" -> storage = args[i + 1];
+                    default -> System.out.println(args[i] + " is an invalid option!");
+                }
+            } catch (NumberFormatException e) {
+                System.out.println(args[i + 1] + " is an invalid number for " + args[i] + "!");
+                return;
+            }
+        }
+
+        if (window == null) {
+            window = new BookingWindow();
+        }
+        if (serverPort != Constants.NOT_FOUND) {
+            if (organizerOption != null) {
+                System.out.println(organizerOption + " cannot be used with --server!");
+                return;
+            }
+            BookingCalendar calendar;
+            if (storage.equals(OBJECTS)) {
+                calendar = new ConcurrentEventCalendar();
+            } else if (storage.equals(SHARDED)) {
+                calendar = new ShardedEventCalendar();
+            } else {
+                System.out.println(storage + " is an invalid storage mode for the server!");
+                return;
+            }
+            new BookingServer(calendar, window, serverPort, Runtime.getRuntime().availableProcessors()).serve();
+            return;
+        }
+        if (!storage.equals(OBJECTS) && !storage.equals(COLUMNAR)) {
+            System.out.println(storage + " is an invalid storage mode!");
+            return;
+        }
+        EventOrganizer organizer = new EventOrganizer(window, storage.equals(COLUMNAR));
+        organizer.setParallelThreshold(parallelThreshold);
+        organizer.getMetrics().register();
+        if (logFile != null && !organizer.openLog(logFile, syncEvery)) {
+            return;
+        }
+        if (batchFile != null) {
+            organizer.runBatch(batchFile);
+            organizer.closeLog();
+        } else {
+            organizer.run();
+        }
     }
 }
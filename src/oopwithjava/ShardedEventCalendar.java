@@ -0,0 +1,435 @@
+package oopwithjava;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Represents an Event Calendar split into one partition per campus. Every
+ * location belongs to exactly one campus, so each booking is routed to the
+ * EventCalendar of its campus, which has its own lock, index and ordered
+ * views. Bookings on different campuses never contend. The reports copy the
+ * sorted events of each partition while holding only that partition's lock,
+ * then merge the copies and render them without any lock, so a slow report
+ * does not stall bookings.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class ShardedEventCalendar implements BookingCalendar {
+    // the campuses in name order, which is the order of the campus report
+    private static final Campus[] CAMPUS_ORDER = Arrays.stream(Campus.values())
+            .sorted(Comparator.comparing(Campus::getName)).toArray(Campus[]::new);
+
+    private final EventCalendar[] shards; // one per campus, by ordinal
+    private final ReentrantLock[] locks; // one per shard
+    private final ConcurrentHashMap<Event, Long> sequences; // booking -> insertion sequence
+    private final AtomicLong nextSequence;
+    private final AtomicLong version; // adds and removes, for caching outputs of the calendar
+
+    /**
+     * Initializes an empty sharded Event Calendar.
+     */
+    public ShardedEventCalendar() {
+        int campuses = Campus.values().length;
+        this.shards = new EventCalendar[campuses];
+        this.locks = new ReentrantLock[campuses];
+        for (int i = 0; i < campuses; i++) {
+            shards[i] = new EventCalendar();
+            locks[i] = new ReentrantLock();
+        }
+        this.sequences = new ConcurrentHashMap<>();
+        this.nextSequence = new AtomicLong();
+        this.version = new AtomicLong();
+    }
+
+    /**
+     * Finds the shard that owns the booking of an event.
+     *
+     * @param event the event
+     * @return the index of the shard of its campus
+     */
+    private static int shardOf(Event event) {
+        return event.getLocation().getCampus().ordinal();
+    }
+
+    /**
+     * Adds an event to the shard of its campus, unless its time overlaps an
+     * event booked at its location. Only the lock of that shard is held, and
+     * the overlap check and insert happen under it as one step.
+     *
+     * @param event the event to be added
+     * @return true if the event was added, false if it conflicts with a booking
+     */
+    @Override
+    public boolean add(Event event) {
+        int shard = shardOf(event);
+        locks[shard].lock();
+        try {
+            if (shards[shard].overlaps(event) || !shards[shard].add(event)) {
+                return false;
+            }
+            sequences.put(event, nextSequence.getAndIncrement());
+            version.incrementAndGet();
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Removes the event booked on the date, timeslot and location of the given
+     * event from the shard of its campus.
+     *
+     * @param event the event to be removed
+     * @return true if the event was removed, false if it was not booked
+     */
+    @Override
+    public boolean remove(Event event) {
+        int shard = shardOf(event);
+        locks[shard].lock();
+        try {
+            if (!shards[shard].remove(event)) {
+                return false;
+            }
+            sequences.remove(event);
+            version.incrementAndGet();
+            return true;
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Checks if the date, timeslot and location of the given event are booked
+     * in the shard of its campus.
+     *
+     * @param event the event to check for
+     * @return true if the booking exists, false otherwise
+     */
+    @Override
+    public boolean contains(Event event) {
+        int shard = shardOf(event);
+        locks[shard].lock();
+        try {
+            return shards[shard].contains(event);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Checks if the time of the given event overlaps an event booked at the
+     * same location, in the shard of its campus.
+     *
+     * @param event the event to check for
+     * @return true if the event overlaps a booking, false otherwise
+     */
+    @Override
+    public boolean overlaps(Event event) {
+        int shard = shardOf(event);
+        locks[shard].lock();
+        try {
+            return shards[shard].overlaps(event);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Lists the events at a location that overlap a span of time, from the
+     * shard of its campus.
+     *
+     * @param location the location
+     * @param start    the first minute of the span, from the epoch
+     * @param end      the minute after the span
+     * @return the overlapping events in start order
+     */
+    @Override
+    public List<Event> overlapping(Location location, long start, long end) {
+        int shard = location.getCampus().ordinal();
+        locks[shard].lock();
+        try {
+            return shards[shard].overlapping(location, start, end);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    /**
+     * Copies the events of every shard in one of the ordered views.
+     *
+     * @param order BY_DATE, BY_CAMPUS or BY_DEPARTMENT
+     * @return the sorted events of each shard, by campus ordinal
+     */
+    private Event[][] scatter(Comparator<Event> order) {
+        Event[][] runs = new Event[shards.length][];
+        for (int i = 0; i < shards.length; i++) {
+            locks[i].lock();
+            try {
+                runs[i] = shards[i].toArray(order);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Merges sorted runs of events into one sorted array. There are only as
+     * many runs as campuses, so the smallest head is found by a linear scan.
+     *
+     * @param runs  the sorted runs
+     * @param order the order of the runs
+     * @return the merged events
+     */
+    private static Event[] merge(Event[][] runs, Comparator<Event> order) {
+        int total = 0;
+        for (Event[] run : runs) {
+            total += run.length;
+        }
+        Event[] merged = new Event[total];
+        int[] heads = new int[runs.length];
+        for (int i = 0; i < total; i++) {
+            int smallest = Constants.NOT_FOUND;
+            for (int run = 0; run < runs.length; run++) {
+                if (heads[run] < runs[run].length && (smallest == Constants.NOT_FOUND
+                        || order.compare(runs[run][heads[run]], runs[smallest][heads[smallest]]) < 0)) {
+                    smallest = run;
+                }
+            }
+            merged[i] = runs[smallest][heads[smallest]++];
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the events of every shard into insertion order. Each shard keeps
+     * its events in insertion order, and their sequence numbers are copied
+     * under the shard's lock, so the runs are merged by sequence.
+     *
+     * @return the events in insertion order
+     */
+    private Event[] inInsertionOrder() {
+        Event[][] runs = new Event[shards.length][];
+        long[][] order = new long[shards.length][];
+        for (int i = 0; i < shards.length; i++) {
+            locks[i].lock();
+            try {
+                runs[i] = shards[i].getEvents();
+                order[i] = new long[runs[i].length];
+                for (int j = 0; j < runs[i].length; j++) {
+                    order[i][j] = sequences.get(runs[i][j]);
+                }
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        int total = 0;
+        for (Event[] run : runs) {
+            total += run.length;
+        }
+        Event[] merged = new Event[total];
+        int[] heads = new int[runs.length];
+        for (int i = 0; i < total; i++) {
+            int smallest = Constants.NOT_FOUND;
+            for (int run = 0; run < runs.length; run++) {
+                if (heads[run] < runs[run].length && (smallest == Constants.NOT_FOUND
+                        || order[run][heads[run]] < order[smallest][heads[smallest]])) {
+                    smallest = run;
+                }
+            }
+            merged[i] = runs[smallest][heads[smallest]++];
+        }
+        return merged;
+    }
+
+    /**
+     * Prints all events in insertion order, merged from the shards.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void print(ReportWriter report) {
+        Event[] events = inInsertionOrder();
+        report.writeReport(ReportWriter.HEADER, events.length, i -> events[i]);
+    }
+
+    /**
+     * Prints all events by date, merging the date views of the shards.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDate(ReportWriter report) {
+        Event[] events = merge(scatter(EventCalendar.BY_DATE), EventCalendar.BY_DATE);
+        report.writeReport(ReportWriter.HEADER_BY_DATE, events.length, i -> events[i]);
+    }
+
+    /**
+     * Prints the events from one date through another by date, merging the
+     * ranges read from the date views of the shards.
+     *
+     * @param from   the first date of the range
+     * @param to     the last date of the range
+     * @param filter the test an event must pass to be printed
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDateRange(Date from, Date to, Predicate<Event> filter, ReportWriter report) {
+        report.writeReport(ReportWriter.rangeHeader(from, to), ReportWriter.EMPTY_RANGE,
+                Arrays.asList(toArray(from, to)), filter);
+    }
+
+    /**
+     * Copies the events from one date through another by date, merging the
+     * ranges read from the date views of the shards.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the events in the range by date
+     */
+    @Override
+    public Event[] toArray(Date from, Date to) {
+        Event[][] runs = new Event[shards.length][];
+        for (int i = 0; i < shards.length; i++) {
+            locks[i].lock();
+            try {
+                runs[i] = shards[i].toArray(from, to);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return merge(runs, EventCalendar.BY_DATE);
+    }
+
+    /**
+     * Finds the earliest free bookings from one day through another. Each
+     * shard searches its own campus under its lock and the results are merged.
+     *
+     * @param fromDay the epoch day of the first date to search
+     * @param toDay   the epoch day of the last date to search
+     * @param campus  the campus to search, or null for every campus
+     * @param found   receives the packed keys of the free bookings in order
+     * @return the number of free bookings found
+     */
+    @Override
+    public int findFree(int fromDay, int toDay, Campus campus, int[] found) {
+        int[] candidates = new int[found.length * shards.length];
+        int count = 0;
+        int[] free = new int[found.length];
+        for (Campus shard : Campus.values()) {
+            if (campus != null && shard != campus) {
+                continue;
+            }
+            int i = shard.ordinal();
+            int located;
+            locks[i].lock();
+            try {
+                located = shards[i].findFree(fromDay, toDay, shard, free);
+            } finally {
+                locks[i].unlock();
+            }
+            System.arraycopy(free, 0, candidates, count, located);
+            count += located;
+        }
+        Arrays.sort(candidates, 0, count);
+        count = Math.min(count, found.length);
+        System.arraycopy(candidates, 0, found, 0, count);
+        return count;
+    }
+
+    /**
+     * Prints all events by campus and building. The shards are the campuses,
+     * so their campus views are printed one after another in campus order
+     * without merging.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByCampus(ReportWriter report) {
+        Event[][] runs = scatter(EventCalendar.BY_CAMPUS);
+        int total = 0;
+        for (Event[] run : runs) {
+            total += run.length;
+        }
+        Event[] events = new Event[total];
+        int offset = 0;
+        for (Campus campus : CAMPUS_ORDER) {
+            Event[] run = runs[campus.ordinal()];
+            System.arraycopy(run, 0, events, offset, run.length);
+            offset += run.length;
+        }
+        report.writeReport(ReportWriter.HEADER_BY_CAMPUS, events.length, i -> events[i]);
+    }
+
+    /**
+     * Prints all events by department, merging the department views of the
+     * shards.
+     *
+     * @param report the report writer to render into
+     */
+    @Override
+    public void printByDepartment(ReportWriter report) {
+        Event[] events = merge(scatter(EventCalendar.BY_DEPARTMENT), EventCalendar.BY_DEPARTMENT);
+        report.writeReport(ReportWriter.HEADER_BY_DEPARTMENT, events.length, i -> events[i]);
+    }
+
+    /**
+     * Gets the number of events in the calendar.
+     *
+     * @return the number of events
+     */
+    @Override
+    public int size() {
+        return sequences.size();
+    }
+
+    /**
+     * Gets the modification version of the calendar, which changes on every
+     * add and remove.
+     *
+     * @return the version
+     */
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Adds up the booking statistics that every shard keeps up to date, each
+     * read under the shard's lock, so it takes constant time in the number of
+     * events.
+     *
+     * @return the statistics of the events
+     */
+    @Override
+    public BookingStats getStats() {
+        BookingStats stats = new BookingStats();
+        for (int i = 0; i < shards.length; i++) {
+            locks[i].lock();
+            try {
+                stats.addAll(shards[i].getStats());
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Returns an iterator over a copy of the events in insertion order, taken
+     * when the iterator is created.
+     *
+     * @return an iterator over the events
+     */
+    @Override
+    public Iterator<Event> iterator() {
+        return Arrays.asList(inInsertionOrder()).iterator();
+    }
+}
@@ -14,6 +14,9 @@ public enum Timeslot {
 
     private final String hour;
     private final String minute;
+    private final String startTime; // e.g. "10:30am"
+    private final int startMinutes; // minutes from midnight
+    private final String[] endTimes; // end time per allowed duration, from MIN_DURATION
 
     /**
      * Constructs a Timeslot with specified hour and minute.
@@ -24,6 +27,16 @@ public enum Timeslot {
     private Timeslot(String hour, String minute) {
         this.hour = hour;
         this.minute = minute;
+        this.startTime = hour + ":" + minute + getAMorPM(Integer.parseInt(hour));
+        int hourOfDay = Integer.parseInt(hour);
+        if (getAMorPM(hourOfDay).equals("pm") && hourOfDay < Constants.HOURS_PER_HALF_DAY) {
+            hourOfDay += Constants.HOURS_PER_HALF_DAY;
+        }
+        this.startMinutes = hourOfDay * Constants.MINUTES_PER_HOUR + Integer.parseInt(minute);
+        this.endTimes = new String[Constants.MAX_DURATION - Constants.MIN_DURATION + 1];
+        for (int duration = Constants.MIN_DURATION; duration <= Constants.MAX_DURATION; duration++) {
+            endTimes[duration - Constants.MIN_DURATION] = computeEndTime(duration);
+        }
     }
 
     /**
@@ -44,6 +57,24 @@ public enum Timeslot {
         return minute;
     }
 
+    /**
+     * Gets the start time of the timeslot.
+     *
+     * @return the start time as a formatted string, e.g. "10:30am"
+     */
+    public String getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the start time of the timeslot as minutes from midnight.
+     *
+     * @return the start time in minutes, e.g. 630 for 10:30am
+     */
+    public int getStartMinutes() {
+        return startMinutes;
+    }
+
     /**
      * Determines if the timeslot is in AM or PM.
      *
@@ -71,12 +102,26 @@ public enum Timeslot {
     }
 
     /**
-     * Calculates the end time of an event based on its duration.
+     * Gets the end time of an event based on its duration.
+     * End times for the allowed durations are looked up in a precomputed table.
      *
      * @param duration the duration of the event in minutes
      * @return the end time as a formatted string
      */
     public String getEndTime(int duration) {
+        if (duration >= Constants.MIN_DURATION && duration <= Constants.MAX_DURATION) {
+            return endTimes[duration - Constants.MIN_DURATION];
+        }
+        return computeEndTime(duration);
+    }
+
+    /**
+     * Calculates the end time of an event based on its duration.
+     *
+     * @param duration the duration of the event in minutes
+     * @return the end time as a formatted string
+     */
+    private String computeEndTime(int duration) {
         int currentHour = Integer.parseInt(hour);
         int currentMinute = Integer.parseInt(minute);
         int newMinute = (currentMinute + duration) % Constants.MINUTES_PER_HOUR;
@@ -0,0 +1,392 @@
+package oopwithjava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An append-only binary log of the bookings added to and removed from a
+ * calendar, replayed on startup to recover the calendar after the process
+ * exits or crashes. A weekly series is logged as one record and replayed as
+ * a series, so its later occurrences stay part of it.
+ * Each record is written to the file as soon as it is logged, before the
+ * command is acknowledged, so a crash of the process loses no record. Forcing
+ * the records to disk is batched once every syncEvery records (group commit),
+ * so a command costs a write to the file cache rather than a disk flush; only
+ * an operating system crash can lose the records since the last force.
+ *
+ * @author Jeffery Sypytkowski
+ * @author Altay Ozkan
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte SERIES = 3; // an add record of the first occurrence, then the number of weeks
+    private static final int BOOKING_BYTES = Integer.BYTES + 2; // epoch day, timeslot, location
+    private static final int REMOVE_BYTES = 1 + BOOKING_BYTES;
+    // a remove record plus department, duration and email length
+    private static final int ADD_HEADER_BYTES = REMOVE_BYTES + 1 + Short.BYTES + Short.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int REPLAY_BATCH = 4096; // adds decoded before they are added together
+
+    private final Path path;
+    private FileChannel channel;
+    private final int syncEvery;
+    private final ByteBuffer buffer;
+    private int unsynced;
+
+    /**
+     * Opens a log for appending, creating the file if needed.
+     *
+     * @param path      the log file
+     * @param syncEvery the number of records per fsync; 1 forces every record
+     *                  to disk before the command completes
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(Path path, int syncEvery) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.syncEvery = Math.max(syncEvery, 1);
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.unsynced = 0;
+    }
+
+    /**
+     * Records that an event was added to the calendar.
+     *
+     * @param event the added event
+     * @throws IOException if the log cannot be written
+     */
+    public void logAdd(Event event) throws IOException {
+        putAdd(ADD, event, event.getContact().getEmail().getBytes(StandardCharsets.UTF_8));
+        recorded();
+    }
+
+    /**
+     * Records that a weekly series was added to the calendar.
+     *
+     * @param series the added series
+     * @throws IOException if the log cannot be written
+     */
+    public void logSeries(EventSeries series) throws IOException {
+        Event first = series.occurrence(0);
+        putAdd(SERIES, first, first.getContact().getEmail().getBytes(StandardCharsets.UTF_8));
+        buffer.put((byte) series.getWeeks());
+        recorded();
+    }
+
+    /**
+     * Records that an event was removed from the calendar.
+     *
+     * @param event the removed event
+     * @throws IOException if the log cannot be written
+     */
+    public void logRemove(Event event) throws IOException {
+        buffer.put(REMOVE);
+        putBooking(event);
+        recorded();
+    }
+
+    /**
+     * Replaces the whole log with one add record per event of a calendar, as
+     * when the calendar is replaced by a snapshot. The records are written to
+     * a temporary file and forced to disk, which then atomically takes the
+     * place of the log, so a crash leaves either the old log or the new one.
+     *
+     * @param events the events of the new calendar, in insertion order
+     * @throws IOException if the new log cannot be written; the old log is
+     *                     kept unless it was already replaced
+     */
+    public void checkpoint(Iterable<Event> events) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Event event : events) {
+                byte[] email = event.getContact().getEmail().getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < ADD_HEADER_BYTES + email.length) {
+                    drain(out);
+                }
+                putAdd(ADD, event, email);
+            }
+            drain(out);
+            out.force(false);
+        } catch (IOException e) {
+            buffer.clear();
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        channel.close();
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * Forces the records written so far to disk.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    public void sync() throws IOException {
+        channel.force(false);
+        unsynced = 0;
+    }
+
+    /**
+     * Syncs the remaining records and closes the log file.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Replays a log into a calendar. A record cut short by a crash ends the
+     * replay, and the file is truncated to the last complete record so new
+     * records follow on cleanly. Runs of add records are decoded into a batch
+     * and added together, and a contact is only decoded when its email differs
+     * from the last one of its department. A series record is added as a
+     * series to a recurring calendar, and as its occurrences to any other.
+     *
+     * @param path     the log file; a missing file replays nothing
+     * @param calendar the calendar to rebuild
+     * @return the number of records replayed
+     * @throws IOException if the file cannot be read
+     */
+    public static long replay(Path path, BookingCalendar calendar) throws IOException {
+        if (!path.toFile().exists()) {
+            return 0;
+        }
+        Location[] locations = Location.values();
+        Timeslot[] timeslots = Timeslot.values();
+        Department[] departments = Department.values();
+        HashMap<String, Contact> contacts = new HashMap<>();
+        Contact[] lastContacts = new Contact[departments.length]; // by department ordinal
+        byte[][] lastEmails = new byte[departments.length][];
+        Event[] batch = new Event[REPLAY_BATCH];
+        int batched = 0;
+        long records = 0;
+        long validBytes = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            boolean endOfLog = false;
+            while (!endOfLog) {
+                endOfLog = channel.read(in) < 0;
+                in.flip();
+                int length;
+                while ((length = recordLength(in)) > 0) {
+                    byte type = in.get();
+                    Date date = Date.ofEpochDay(in.getInt());
+                    Timeslot timeslot = timeslots[in.get()];
+                    Location location = locations[in.get()];
+                    if (type == REMOVE) {
+                        addBatch(calendar, batch, batched);
+                        batched = 0;
+                        calendar.remove(new Event(date, timeslot, location, null, 0));
+                    } else {
+                        Department department = departments[in.get()];
+                        int duration = in.getShort();
+                        int emailLength = Short.toUnsignedInt(in.getShort());
+                        byte[] last = lastEmails[department.ordinal()];
+                        if (last == null || !sameBytes(in, last, emailLength)) {
+                            byte[] email = new byte[emailLength];
+                            in.get(email);
+                            String address = new String(email, StandardCharsets.UTF_8);
+                            lastContacts[department.ordinal()] = contacts.computeIfAbsent(
+                                    department.ordinal() + address, key -> new Contact(department, address));
+                            lastEmails[department.ordinal()] = email;
+                        } else {
+                            in.position(in.position() + emailLength);
+                        }
+                        Event event = new Event(date, timeslot, location, lastContacts[department.ordinal()],
+                                duration);
+                        if (type == SERIES) {
+                            addBatch(calendar, batch, batched);
+                            batched = 0;
+                            addSeries(calendar, new EventSeries(event, in.get()));
+                        } else {
+                            batch[batched++] = event;
+                        }
+                        if (batched == batch.length) {
+                            addBatch(calendar, batch, batched);
+                            batched = 0;
+                        }
+                    }
+                    records++;
+                    validBytes += length;
+                }
+                if (length < 0) {
+                    break; // a damaged record; everything after it is dropped
+                }
+                in.compact();
+            }
+            addBatch(calendar, batch, batched);
+            if (validBytes < channel.size()) {
+                channel.truncate(validBytes);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Adds the decoded events of a batch to a calendar.
+     *
+     * @param calendar the calendar being rebuilt
+     * @param batch    the decoded events
+     * @param count    the number of events in the batch
+     */
+    private static void addBatch(BookingCalendar calendar, Event[] batch, int count) {
+        if (count > 0) {
+            calendar.addAll(count == batch.length ? batch : Arrays.copyOf(batch, count));
+        }
+    }
+
+    /**
+     * Adds a replayed series to a calendar.
+     *
+     * @param calendar the calendar being rebuilt
+     * @param series   the decoded series
+     */
+    private static void addSeries(BookingCalendar calendar, EventSeries series) {
+        if (calendar instanceof RecurringCalendar recurring) {
+            recurring.addSeries(series);
+            return;
+        }
+        for (int week = 0; week < series.getWeeks(); week++) {
+            calendar.add(series.occurrence(week));
+        }
+    }
+
+    /**
+     * Checks if the bytes at the position of a buffer are those of an array,
+     * without consuming them.
+     *
+     * @param in     the buffer
+     * @param bytes  the array
+     * @param length the number of bytes in the buffer to compare
+     * @return true if the bytes are the same
+     */
+    private static boolean sameBytes(ByteBuffer in, byte[] bytes, int length) {
+        if (bytes.length != length) {
+            return false;
+        }
+        int start = in.position();
+        for (int i = 0; i < length; i++) {
+            if (in.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the record at the position of the buffer without consuming it.
+     *
+     * @param in the buffer holding the log contents
+     * @return the length of the record, 0 if it is incomplete, or -1 if it is
+     *         damaged
+     */
+    private static int recordLength(ByteBuffer in) {
+        int start = in.position();
+        if (in.remaining() < REMOVE_BYTES) {
+            return 0;
+        }
+        byte type = in.get(start);
+        int timeslot = in.get(start + 1 + Integer.BYTES);
+        int location = in.get(start + 2 + Integer.BYTES);
+        if ((type != ADD && type != REMOVE && type != SERIES) || timeslot < 0 || timeslot >= Timeslot.values().length
+                || location < 0 || location >= Location.values().length) {
+            return -1;
+        }
+        if (type == REMOVE) {
+            return REMOVE_BYTES;
+        }
+        if (in.remaining() < ADD_HEADER_BYTES) {
+            return 0;
+        }
+        int department = in.get(start + REMOVE_BYTES);
+        if (department < 0 || department >= Department.values().length) {
+            return -1;
+        }
+        int length = ADD_HEADER_BYTES + Short.toUnsignedInt(in.getShort(start + ADD_HEADER_BYTES - Short.BYTES));
+        if (type == SERIES) {
+            length++;
+            if (in.remaining() >= length) {
+                int weeks = in.get(start + length - 1);
+                if (weeks < 1 || weeks > Constants.MAX_SERIES_WEEKS) {
+                    return -1;
+                }
+            }
+        }
+        return in.remaining() < length ? 0 : length;
+    }
+
+    /**
+     * Appends an add record, or the start of a series record, to the buffer.
+     *
+     * @param type  ADD or SERIES
+     * @param event the added event, or the first occurrence of the series
+     * @param email the email of its contact, encoded
+     */
+    private void putAdd(byte type, Event event, byte[] email) {
+        buffer.put(type);
+        putBooking(event);
+        buffer.put((byte) event.getContact().getDepartment().ordinal());
+        buffer.putShort((short) event.getDuration());
+        buffer.putShort((short) email.length);
+        buffer.put(email);
+    }
+
+    /**
+     * Writes the records in the buffer to a file and empties the buffer.
+     *
+     * @param out the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    private void drain(FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Appends the date, timeslot and location of an event.
+     *
+     * @param event the event to append
+     */
+    private void putBooking(Event event) {
+        buffer.putInt(event.getDate().toEpochDay());
+        buffer.put((byte) event.getTimeslot().ordinal());
+        buffer.put((byte) event.getLocation().ordinal());
+    }
+
+    /**
+     * Writes the record in the buffer to the file, and forces the group of
+     * records to disk once it is full.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    private void recorded() throws IOException {
+        drain(channel);
+        if (++unsynced >= syncEvery) {
+            sync();
+        }
+    }
+}